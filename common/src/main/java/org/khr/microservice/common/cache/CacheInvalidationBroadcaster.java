@@ -0,0 +1,87 @@
+package org.khr.microservice.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 多实例本地缓存的失效：事务提交后（没有事务时立即）清本地、清共享层，再通过 Redis pub/sub 通知其他实例清本地
+ * <p>
+ * 每个缓存持有一个实例，并把它作为 MessageListener 注册到 RedisMessageListenerContainer 的同一频道。
+ * 自己发出的通知也会收到，只是再清一次本地，没有影响。
+ */
+@Slf4j
+public class CacheInvalidationBroadcaster implements MessageListener {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final String channel;
+    private final Consumer<List<String>> localInvalidator;
+    private final Consumer<List<String>> sharedInvalidator;
+
+    public CacheInvalidationBroadcaster(RedisTemplate<String, String> redisTemplate, String channel,
+                                        Consumer<List<String>> localInvalidator) {
+        this(redisTemplate, channel, localInvalidator, _ -> {
+        });
+    }
+
+    /**
+     * @param sharedInvalidator 共享层（例如 Redis 中的缓存值）的失效，在清本地之后、发通知之前执行
+     */
+    public CacheInvalidationBroadcaster(RedisTemplate<String, String> redisTemplate, String channel,
+                                        Consumer<List<String>> localInvalidator,
+                                        Consumer<List<String>> sharedInvalidator) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.localInvalidator = localInvalidator;
+        this.sharedInvalidator = sharedInvalidator;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * 写操作之后调用；在事务中则等提交后再失效，回滚时不动缓存
+     */
+    public void invalidateAfterCommit(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> snapshot = List.copyOf(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow(snapshot);
+                }
+            });
+        } else {
+            invalidateNow(snapshot);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        localInvalidator.accept(List.of(body.split(",")));
+    }
+
+    private void invalidateNow(List<String> keys) {
+        localInvalidator.accept(keys);
+        try {
+            sharedInvalidator.accept(keys);
+            redisTemplate.convertAndSend(channel, String.join(",", keys));
+        } catch (RuntimeException e) {
+            // 共享层靠自身 TTL、其他实例的本地缓存靠本地 TTL 追上
+            log.warn("缓存失效失败: Channel={}, Keys={}, Error={}", channel, keys, e.getMessage());
+        }
+    }
+}
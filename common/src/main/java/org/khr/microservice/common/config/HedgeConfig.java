@@ -0,0 +1,34 @@
+package org.khr.microservice.common.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.khr.microservice.common.hedge.HedgePolicies;
+import org.khr.microservice.common.hedge.HedgingExecutor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(HedgeProperties.class)
+public class HedgeConfig {
+
+    @Bean
+    public HedgePolicies hedgePolicies(HedgeProperties properties, MeterRegistry meterRegistry) {
+        return new HedgePolicies(properties, meterRegistry);
+    }
+
+    /**
+     * 阻塞调用的对冲只在 servlet 服务中使用（需要传递 Seata XID）
+     */
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(name = "io.seata.core.context.RootContext")
+    static class ServletHedgeConfig {
+
+        @Bean
+        public HedgingExecutor hedgingExecutor(HedgePolicies hedgePolicies) {
+            return new HedgingExecutor(hedgePolicies);
+        }
+    }
+}
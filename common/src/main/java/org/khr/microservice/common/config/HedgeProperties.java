@@ -0,0 +1,50 @@
+package org.khr.microservice.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 对冲请求配置，见 {@link org.khr.microservice.common.hedge.HedgePolicy}
+ */
+@Data
+@ConfigurationProperties(prefix = "hedge")
+public class HedgeProperties {
+
+    /**
+     * key 为 {@link org.khr.microservice.common.hedge.Hedged} 中的策略名，未配置的策略使用默认值
+     */
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    @Data
+    public static class Policy {
+
+        /**
+         * 第一次尝试超过最近延迟的该分位数仍未返回时发出第二次尝试
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 对冲等待时间的下限，避免延迟很低时几乎每个请求都对冲
+         */
+        private Duration minDelay = Duration.ofMillis(10);
+
+        /**
+         * 对冲请求最多占总请求数的百分比
+         */
+        private double budgetPercent = 5;
+
+        /**
+         * 计算分位数用的最近样本数
+         */
+        private int windowSize = 1000;
+
+        /**
+         * 样本数不足时不对冲
+         */
+        private int minSamples = 100;
+    }
+}
@@ -0,0 +1,33 @@
+package org.khr.microservice.common.config;
+
+import org.khr.microservice.common.loadbalancer.PeakEwmaLifecycle;
+import org.khr.microservice.common.loadbalancer.PeakEwmaLoadBalancerConfiguration;
+import org.khr.microservice.common.loadbalancer.PeakEwmaStats;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 网关 lb:// 路由和 @LoadBalanced RestClient 共用的负载均衡配置
+ * <p>
+ * loadbalancer.peak-ewma.services 中列出的服务使用 Peak-EWMA，其余保持轮询。
+ */
+@Configuration
+@ConditionalOnClass(ReactorServiceInstanceLoadBalancer.class)
+@EnableConfigurationProperties(PeakEwmaProperties.class)
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+
+    @Bean
+    public PeakEwmaStats peakEwmaStats(PeakEwmaProperties properties) {
+        return new PeakEwmaStats(properties.getDecay());
+    }
+
+    @Bean
+    public PeakEwmaLifecycle peakEwmaLifecycle(PeakEwmaStats stats, PeakEwmaProperties properties) {
+        return new PeakEwmaLifecycle(stats, properties);
+    }
+}
@@ -0,0 +1,31 @@
+package org.khr.microservice.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Peak-EWMA 负载均衡配置，见 {@link org.khr.microservice.common.loadbalancer.PeakEwmaLoadBalancer}
+ */
+@Data
+@ConfigurationProperties(prefix = "loadbalancer.peak-ewma")
+public class PeakEwmaProperties {
+
+    /**
+     * 使用 Peak-EWMA 的服务名，未列出的服务仍为轮询
+     */
+    private Set<String> services = new LinkedHashSet<>();
+
+    /**
+     * 延迟均值的衰减时间窗口，越小对实例变慢/恢复的反应越快
+     */
+    private Duration decay = Duration.ofSeconds(10);
+
+    /**
+     * 调用失败时按该延迟计入，避免快速失败的实例反而被优先选中
+     */
+    private Duration failurePenalty = Duration.ofSeconds(1);
+}
@@ -1,12 +1,14 @@
 package org.khr.microservice.common.config;
 
 import io.seata.core.context.RootContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestClient;
 
 @Configuration
+@ConditionalOnClass(name = "io.seata.core.context.RootContext")
 public class RestClientConfig {
 
     @Bean
@@ -0,0 +1,56 @@
+package org.khr.microservice.common.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.common.id.SnowflakeIdGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * 仅在有 Hibernate 的服务（持久化 @SnowflakeId 实体）中生效，网关等不需要主键生成器
+ */
+@Slf4j
+@Configuration
+@ConditionalOnClass(name = "org.hibernate.id.IdentifierGenerator")
+@EnableConfigurationProperties(SnowflakeIdProperties.class)
+public class SnowflakeIdConfig {
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(SnowflakeIdProperties properties, Environment environment) {
+        long workerId;
+        if (properties.getWorkerId() != null) {
+            workerId = properties.getWorkerId();
+        } else if (properties.isRequireWorkerId()) {
+            throw new IllegalStateException("未配置 id.snowflake.worker-id（id.snowflake.require-worker-id=true）");
+        } else {
+            String instanceId = instanceId(environment);
+            workerId = SnowflakeIdGenerator.workerIdOf(instanceId);
+            log.warn("未配置 id.snowflake.worker-id，按实例标识 {} 散列得到 WorkerId={}；"
+                + "同一服务的多个实例可能得到相同的 WorkerId 并生成重复主键，多实例部署请为每个实例显式配置", instanceId, workerId);
+        }
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(workerId);
+        // Hibernate 自己实例化主键生成器，通过静态单例共享
+        SnowflakeIdGenerator.install(generator);
+        return generator;
+    }
+
+    private static String instanceId(Environment environment) {
+        String consulInstanceId = environment.getProperty("spring.cloud.consul.discovery.instance-id");
+        if (consulInstanceId != null) {
+            return consulInstanceId;
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return environment.getProperty("spring.application.name", "application") + ":" + host + ":"
+            + environment.getProperty("server.port", "8080");
+    }
+}
@@ -0,0 +1,22 @@
+package org.khr.microservice.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Snowflake ID 配置，见 {@link org.khr.microservice.common.id.SnowflakeIdGenerator}
+ */
+@Data
+@ConfigurationProperties(prefix = "id.snowflake")
+public class SnowflakeIdProperties {
+
+    /**
+     * 0〜1023；不配置时由 Consul 实例 ID（或 应用名:主机名:端口）散列得到
+     */
+    private Long workerId;
+
+    /**
+     * 为 true 时未配置 workerId 直接启动失败；多实例部署的环境应开启（散列得到的 workerId 可能重复，导致主键冲突）
+     */
+    private boolean requireWorkerId = false;
+}
@@ -3,20 +3,20 @@ package org.khr.microservice.common.config;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import org.khr.microservice.common.context.UserContext;
+import org.khr.microservice.common.whitelist.WhiteListMatcher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.Set;
 
 @Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserContextFilter implements Filter {
 
-    private static final Set<String> WHITE_LIST = Set.of(
-        "/api/users/login",
-        "/api/users/register",
-        "/actuator/health"
-    );
+    private final WhiteListMatcher whiteListMatcher;
 
     @Override
     public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
@@ -28,7 +28,7 @@ public class UserContextFilter implements Filter {
         String path = request.getRequestURI();
 
         // ✅ ① 白名单直接放行
-        if (WHITE_LIST.contains(path)) {
+        if (whiteListMatcher.matches(path)) {
             chain.doFilter(req, res);
             return;
         }
@@ -0,0 +1,19 @@
+package org.khr.microservice.common.config;
+
+import org.khr.microservice.common.whitelist.WhiteListMatcher;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(WhiteListProperties.class)
+public class WhiteListConfig {
+
+    /**
+     * 启动时编译白名单，网关和各服务共用
+     */
+    @Bean
+    public WhiteListMatcher whiteListMatcher(WhiteListProperties properties) {
+        return WhiteListMatcher.compile(properties.getPaths());
+    }
+}
@@ -0,0 +1,21 @@
+package org.khr.microservice.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 免登录白名单，规则语法见 {@link org.khr.microservice.common.whitelist.WhiteListMatcher}
+ */
+@Data
+@ConfigurationProperties(prefix = "security.white-list")
+public class WhiteListProperties {
+
+    private List<String> paths = new ArrayList<>(List.of(
+        "/api/users/login",
+        "/api/users/register",
+        "/actuator/health"
+    ));
+}
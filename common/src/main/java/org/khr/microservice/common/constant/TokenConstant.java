@@ -8,4 +8,9 @@ public interface TokenConstant {
 
     String TOKEN_SECRET = "your_secret_key";
     String X_USERID = "X-UserId";
+
+    /**
+     * 后台任务（定时写回、消息消费等）调用其他服务时使用的用户 ID
+     */
+    String SYSTEM_USER_ID = "0";
 }
@@ -0,0 +1,29 @@
+package org.khr.microservice.common.hedge;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.khr.microservice.common.config.HedgeProperties;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按名称共享 {@link HedgePolicy}，同名调用共用延迟样本和预算
+ */
+@RequiredArgsConstructor
+public class HedgePolicies {
+
+    private final HedgeProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, HedgePolicy> policies = new ConcurrentHashMap<>();
+
+    public HedgePolicy get(String name) {
+        HedgePolicy policy = policies.get(name);
+        if (policy != null) {
+            return policy;
+        }
+        return policies.computeIfAbsent(name, key -> new HedgePolicy(key,
+            properties.getPolicies().getOrDefault(key, new HedgeProperties.Policy()), meterRegistry));
+    }
+}
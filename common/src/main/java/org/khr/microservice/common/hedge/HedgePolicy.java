@@ -0,0 +1,119 @@
+package org.khr.microservice.common.hedge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.khr.microservice.common.config.HedgeProperties;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对冲策略：什么时候发出第二次尝试、还能不能发
+ * <p>
+ * 等待时间取最近 windowSize 个请求延迟的分位数（每 {@value #RECOMPUTE_INTERVAL} 个样本重算一次）。
+ * 预算按额度计：每个请求积累 budgetPercent% 次对冲额度，每次对冲消耗一次，
+ * 下游整体变慢时对冲比例也不会超过预算，不会把负载翻倍。
+ */
+public class HedgePolicy {
+
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    /**
+     * 额度以千分之一次对冲为单位
+     */
+    private static final long CREDIT_PER_HEDGE = 1000;
+
+    /**
+     * 最多攒 10 次对冲额度，防止空闲后突发大量对冲
+     */
+    private static final long MAX_CREDITS = 10 * CREDIT_PER_HEDGE;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final long creditPerRequest;
+
+    private final AtomicLongArray samples;
+    private final AtomicLong sampleCount = new AtomicLong();
+    private final AtomicLong credits = new AtomicLong();
+
+    private volatile long delayNanos = Long.MAX_VALUE;
+
+    private final Counter fired;
+    private final Counter won;
+
+    public HedgePolicy(String name, HedgeProperties.Policy config, MeterRegistry meterRegistry) {
+        this.percentile = Math.min(Math.max(config.getPercentile(), 0.0), 1.0);
+        this.minDelayNanos = config.getMinDelay().toNanos();
+        this.samples = new AtomicLongArray(Math.max(config.getWindowSize(), 1));
+        this.minSamples = Math.min(Math.max(config.getMinSamples(), 1), samples.length());
+        this.creditPerRequest = Math.round(config.getBudgetPercent() * CREDIT_PER_HEDGE / 100);
+        this.fired = Counter.builder("hedge.fired").tag("policy", name).register(meterRegistry);
+        this.won = Counter.builder("hedge.won").tag("policy", name).register(meterRegistry);
+    }
+
+    /**
+     * 第一次尝试发出时调用，积累对冲额度
+     */
+    public void onRequest() {
+        if (creditPerRequest <= 0) {
+            return;
+        }
+        while (true) {
+            long current = credits.get();
+            if (current >= MAX_CREDITS || credits.compareAndSet(current, Math.min(MAX_CREDITS, current + creditPerRequest))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 第一次尝试发出后等待多久再对冲；样本不足时为 Long.MAX_VALUE（不对冲）
+     */
+    public long hedgeDelayNanos() {
+        return delayNanos;
+    }
+
+    /**
+     * 预算内则占用一次额度并返回 true
+     */
+    public boolean tryHedge() {
+        while (true) {
+            long current = credits.get();
+            if (current < CREDIT_PER_HEDGE) {
+                return false;
+            }
+            if (credits.compareAndSet(current, current - CREDIT_PER_HEDGE)) {
+                fired.increment();
+                return true;
+            }
+        }
+    }
+
+    public void onHedgeWon() {
+        won.increment();
+    }
+
+    /**
+     * 记录一次请求从发出到拿到结果的耗时
+     */
+    public void record(long latencyNanos) {
+        long count = sampleCount.incrementAndGet();
+        int size = samples.length();
+        samples.set((int) ((count - 1) % size), latencyNanos);
+        if (count >= minSamples && count % RECOMPUTE_INTERVAL == 0) {
+            recompute((int) Math.min(count, size));
+        }
+    }
+
+    private void recompute(int filled) {
+        long[] copy = new long[filled];
+        for (int i = 0; i < filled; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        int index = Math.max((int) Math.ceil(percentile * filled) - 1, 0);
+        delayNanos = Math.max(minDelayNanos, copy[index]);
+    }
+}
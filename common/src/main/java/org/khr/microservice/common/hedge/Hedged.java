@@ -0,0 +1,21 @@
+package org.khr.microservice.common.hedge;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记可以对冲的幂等调用，只对 {@link HedgingExecutor#proxy} 包装过的客户端生效
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Hedged {
+
+    /**
+     * 策略名，对应 hedge.policies 下的配置
+     */
+    String value();
+}
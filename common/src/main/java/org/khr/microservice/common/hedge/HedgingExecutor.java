@@ -0,0 +1,165 @@
+package org.khr.microservice.common.hedge;
+
+import io.seata.core.context.RootContext;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.khr.microservice.common.context.UserContext;
+import org.khr.microservice.common.loadbalancer.AttemptHint;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阻塞调用的对冲执行（servlet 服务中使用）
+ * <p>
+ * 每次尝试在独立的虚拟线程中执行，并带上调用方的 UserContext、Seata XID 和 {@link AttemptHint}。
+ * 第一次尝试超过策略给出的等待时间仍未返回时，在预算内发出第二次尝试，取先成功的结果，
+ * 另一个通过中断取消。两次都失败时抛出先失败的那个异常。
+ */
+public class HedgingExecutor implements DisposableBean {
+
+    private final HedgePolicies policies;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public HedgingExecutor(HedgePolicies policies) {
+        this.policies = policies;
+    }
+
+    /**
+     * 包装 HTTP 客户端，标注了 {@link Hedged} 的方法按对冲执行，其余方法直接调用
+     */
+    public <T> T proxy(Class<T> type, T target) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.addInterface(type);
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            Method method = invocation.getMethod();
+            Hedged hedged = AnnotationUtils.findAnnotation(method, Hedged.class);
+            if (hedged == null) {
+                return invocation.proceed();
+            }
+            Object[] args = invocation.getArguments();
+            return execute(hedged.value(), () -> invoke(target, method, args));
+        });
+        return type.cast(factory.getProxy(type.getClassLoader()));
+    }
+
+    public <T> T execute(String policyName, Callable<T> call) throws Exception {
+        HedgePolicy policy = policies.get(policyName);
+        String userId = UserContext.getUser();
+        String xid = RootContext.getXID();
+        AttemptHint primaryHint = AttemptHint.first();
+
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        long start = System.nanoTime();
+        policy.onRequest();
+        Future<T> primary = completion.submit(withContext(call, userId, xid, primaryHint));
+        AttemptHint hedgeHint = primaryHint.next();
+        Future<T> hedge = null;
+        try {
+            Future<T> done = completion.poll(policy.hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+            if (done == null && policy.tryHedge()) {
+                hedge = completion.submit(withContext(call, userId, xid, hedgeHint));
+            }
+            if (done == null) {
+                done = completion.take();
+            }
+            try {
+                T result = done.get();
+                onSuccess(policy, start, done == hedge);
+                return result;
+            } catch (ExecutionException e) {
+                if (hedge == null) {
+                    throw unwrap(e);
+                }
+                // 先返回的一方失败了，再等另一方
+                Future<T> other = completion.take();
+                try {
+                    T result = other.get();
+                    onSuccess(policy, start, other == hedge);
+                    return result;
+                } catch (ExecutionException ignored) {
+                    throw unwrap(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            cancel(primary, primaryHint);
+            if (hedge != null) {
+                cancel(hedge, hedgeHint);
+            }
+        }
+    }
+
+    /**
+     * 落败的一方先 abandon 再中断：被中断的调用会以 FAILED 结束，不能按失败延迟计入一个可能健康的实例
+     */
+    private static void cancel(Future<?> attempt, AttemptHint hint) {
+        if (!attempt.isDone()) {
+            hint.abandon();
+            attempt.cancel(true);
+        }
+    }
+
+    private static void onSuccess(HedgePolicy policy, long start, boolean hedgeWon) {
+        policy.record(System.nanoTime() - start);
+        if (hedgeWon) {
+            policy.onHedgeWon();
+        }
+    }
+
+    private static <T> Callable<T> withContext(Callable<T> call, String userId, String xid, AttemptHint hint) {
+        return () -> {
+            UserContext.setUser(userId);
+            if (xid != null) {
+                RootContext.bind(xid);
+            }
+            AttemptHint.bind(hint);
+            try {
+                return call.call();
+            } finally {
+                AttemptHint.clear();
+                if (xid != null) {
+                    RootContext.unbind();
+                }
+                UserContext.clear();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T invoke(Object target, Method method, Object[] args) throws Exception {
+        try {
+            return (T) AopUtils.invokeJoinpointUsingReflection(target, method, args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return cause instanceof Exception exception ? exception : e;
+    }
+
+    @Override
+    public void destroy() {
+        executor.close();
+    }
+}
@@ -0,0 +1,24 @@
+package org.khr.microservice.common.id;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 主键由 {@link SnowflakeIdGenerator} 在插入前生成（替代 IDENTITY，使 Hibernate 可以批量 INSERT）
+ * <p>
+ * ID 超过 2^53，JSON 中按字符串输出，避免浏览器端 JavaScript 丢失精度（读取时字符串、数字都接受）
+ */
+@IdGeneratorType(SnowflakeIdentifierGenerator.class)
+@JacksonAnnotationsInside
+@JsonFormat(shape = JsonFormat.Shape.STRING)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SnowflakeId {
+
+}
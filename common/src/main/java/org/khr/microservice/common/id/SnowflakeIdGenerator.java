@@ -0,0 +1,107 @@
+package org.khr.microservice.common.id;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+
+/**
+ * 64 位时间有序 ID：1 位符号 | 41 位毫秒时间戳（自 2025-01-01 起，约 69 年）| 10 位 workerId | 12 位序号
+ * <p>
+ * 不需要数据库或其他实例协调；同一进程内单例（{@link #get()}），workerId 在启动时由
+ * {@link org.khr.microservice.common.config.SnowflakeIdConfig} 从配置或 Consul 实例 ID 确定。
+ * 时钟小幅回拨（≤ {@value #MAX_BACKWARD_MILLIS}ms）时等待追上，更大的回拨直接拒绝，避免生成重复 ID。
+ */
+@Slf4j
+public final class SnowflakeIdGenerator {
+
+    static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    static final int WORKER_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_BACKWARD_MILLIS = 5;
+
+    private static volatile SnowflakeIdGenerator instance;
+
+    @Getter
+    private final long workerId;
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    public SnowflakeIdGenerator(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId 必须在 0~" + MAX_WORKER_ID + " 之间: " + workerId);
+        }
+        this.workerId = workerId;
+    }
+
+    /**
+     * 进程内共享的生成器；未经 Spring 配置时（测试、工具）按主机名推导 workerId
+     */
+    public static SnowflakeIdGenerator get() {
+        SnowflakeIdGenerator current = instance;
+        if (current == null) {
+            synchronized (SnowflakeIdGenerator.class) {
+                if (instance == null) {
+                    instance = new SnowflakeIdGenerator(workerIdOf(hostName()));
+                }
+                current = instance;
+            }
+        }
+        return current;
+    }
+
+    public static synchronized void install(SnowflakeIdGenerator generator) {
+        instance = generator;
+        log.info("Snowflake ID 生成器: WorkerId={}", generator.getWorkerId());
+    }
+
+    /**
+     * 由实例标识推导 workerId（散列，实例数远小于 1024 时冲突概率低；需要严格唯一时请显式配置）
+     */
+    public static long workerIdOf(String instanceId) {
+        return (instanceId.hashCode() & Integer.MAX_VALUE) % (MAX_WORKER_ID + 1);
+    }
+
+    public synchronized long nextId() {
+        long timestamp = System.currentTimeMillis();
+        if (timestamp < lastTimestamp) {
+            long backward = lastTimestamp - timestamp;
+            if (backward > MAX_BACKWARD_MILLIS) {
+                throw new IllegalStateException("时钟回拨 " + backward + "ms，拒绝生成 ID");
+            }
+            timestamp = waitUntil(lastTimestamp);
+        }
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                // 同一毫秒内序号用完，等下一毫秒
+                timestamp = waitUntil(lastTimestamp + 1);
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+        return ((timestamp - EPOCH) << (WORKER_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | sequence;
+    }
+
+    private static long waitUntil(long target) {
+        long timestamp = System.currentTimeMillis();
+        while (timestamp < target) {
+            Thread.onSpinWait();
+            timestamp = System.currentTimeMillis();
+        }
+        return timestamp;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.khr.microservice.common.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 同一请求的多次尝试（对冲）之间传递所选实例，让后一次尝试避开前一次的实例
+ * <p>
+ * 网关通过 exchange 属性 {@link #ATTRIBUTE} 传入，servlet 端通过 {@link #bind} 绑定到发起调用的线程。
+ * 只有使用 {@link PeakEwmaLoadBalancer} 的服务会参考该提示。
+ */
+public final class AttemptHint {
+
+    public static final String ATTRIBUTE = AttemptHint.class.getName();
+
+    private static final ThreadLocal<AttemptHint> CURRENT = new ThreadLocal<>();
+
+    private final AttemptHint previous;
+
+    private volatile String chosenInstance;
+
+    /**
+     * 已选中实例但尚未结束时，放弃该尝试要执行的清理（归还在途计数）
+     */
+    private final AtomicReference<Runnable> release = new AtomicReference<>();
+
+    private AttemptHint(AttemptHint previous) {
+        this.previous = previous;
+    }
+
+    public static AttemptHint first() {
+        return new AttemptHint(null);
+    }
+
+    /**
+     * 下一次尝试，会避开本次选中的实例
+     */
+    public AttemptHint next() {
+        return new AttemptHint(this);
+    }
+
+    public static AttemptHint current() {
+        return CURRENT.get();
+    }
+
+    public static void bind(AttemptHint hint) {
+        CURRENT.set(hint);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 尝试被取消（对冲中落败的一方）时调用；负载均衡生命周期不会再收到它的完成回调
+     */
+    public void abandon() {
+        Runnable action = release.getAndSet(null);
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    String avoidInstance() {
+        return previous == null ? null : previous.chosenInstance;
+    }
+
+    void chosen(String instanceKey) {
+        this.chosenInstance = instanceKey;
+    }
+
+    void track(Runnable releaseAction) {
+        release.set(releaseAction);
+    }
+
+    /**
+     * @return false 表示该尝试已被放弃，清理已经做过
+     */
+    boolean untrack() {
+        return release.getAndSet(null) != null;
+    }
+}
@@ -0,0 +1,101 @@
+package org.khr.microservice.common.loadbalancer;
+
+import lombok.RequiredArgsConstructor;
+import org.khr.microservice.common.config.PeakEwmaProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 在请求开始、结束时更新 {@link PeakEwmaStats}
+ * <p>
+ * 网关的 ReactiveLoadBalancerClientFilter 和 @LoadBalanced RestClient 都会回调该接口，
+ * 两者在 onStartRequest 和 onComplete 中传入同一个 Request 对象，开始时间按该对象（同一性）记录。
+ * 不依赖 TimedRequestContext：只有开启 micrometer 统计时 Spring Cloud 才会写入它。
+ */
+@RequiredArgsConstructor
+public class PeakEwmaLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final PeakEwmaStats stats;
+    private final PeakEwmaProperties properties;
+
+    private final ConcurrentMap<RequestKey, Long> startTimes = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (!isTracked(lbResponse)) {
+            return;
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        RequestKey key = new RequestKey(request);
+        stats.onStart(instance);
+        startTimes.put(key, System.nanoTime());
+        AttemptHint hint = PeakEwmaLoadBalancer.attemptHint(request);
+        if (hint != null) {
+            hint.track(() -> {
+                startTimes.remove(key);
+                stats.onDiscard(instance);
+            });
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (!isTracked(lbResponse)) {
+            return;
+        }
+        AttemptHint hint = PeakEwmaLoadBalancer.attemptHint(completionContext.getLoadBalancerRequest());
+        if (hint != null && !hint.untrack()) {
+            // 对冲中落败被取消的尝试，在途计数已由 abandon() 归还
+            return;
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        Long start = startTimes.remove(new RequestKey(completionContext.getLoadBalancerRequest()));
+        if (completionContext.status() == CompletionContext.Status.DISCARD || start == null) {
+            stats.onDiscard(instance);
+            return;
+        }
+
+        long rtt = System.nanoTime() - start;
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            rtt = Math.max(rtt, properties.getFailurePenalty().toNanos());
+        }
+        stats.onComplete(instance, rtt);
+    }
+
+    private boolean isTracked(Response<ServiceInstance> lbResponse) {
+        return lbResponse != null && lbResponse.hasServer()
+            && properties.getServices().contains(lbResponse.getServer().getServiceId());
+    }
+
+    /**
+     * 按对象同一性比较（DefaultRequest 的 equals 比较的是 context 内容，不同请求可能相等）
+     */
+    private record RequestKey(Object request) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof RequestKey key && key.request == request;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(request);
+        }
+    }
+}
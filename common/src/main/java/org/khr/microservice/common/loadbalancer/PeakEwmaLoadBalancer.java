@@ -0,0 +1,102 @@
+package org.khr.microservice.common.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Peak-EWMA + power-of-two-choices 负载均衡
+ * <p>
+ * 每次随机取两个实例，选 延迟均值 × (在途请求数 + 1) 较小的一个。
+ * 单个实例 GC 或被邻居拖慢时，延迟峰值会立刻让它降权，而不是像轮询那样继续均分流量。
+ * 延迟和在途数由 {@link PeakEwmaLifecycle} 在请求前后更新。
+ * 带有 {@link AttemptHint} 的对冲请求会避开前一次尝试选中的实例。
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final PeakEwmaStats stats;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                String serviceId, PeakEwmaStats stats) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.stats = stats;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+            .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        // 在调用线程取提示，实例列表可能在其他线程发出
+        AttemptHint hint = attemptHint(request);
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = choose(avoid(instances, hint));
+            if (hint != null && response.hasServer()) {
+                hint.chosen(PeakEwmaStats.key(response.getServer()));
+            }
+            if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+                callback.selectedServiceInstance(response.getServer());
+            }
+            return response;
+        });
+    }
+
+    static AttemptHint attemptHint(Request<?> request) {
+        if (request != null && request.getContext() instanceof RequestDataContext context
+            && context.getClientRequest() != null && context.getClientRequest().getAttributes() != null
+            && context.getClientRequest().getAttributes().get(AttemptHint.ATTRIBUTE) instanceof AttemptHint hint) {
+            return hint;
+        }
+        return AttemptHint.current();
+    }
+
+    private static List<ServiceInstance> avoid(List<ServiceInstance> instances, AttemptHint hint) {
+        String avoid = hint == null ? null : hint.avoidInstance();
+        if (avoid == null || instances.size() < 2) {
+            return instances;
+        }
+        List<ServiceInstance> others = instances.stream()
+            .filter(instance -> !avoid.equals(PeakEwmaStats.key(instance)))
+            .toList();
+        return others.isEmpty() ? instances : others;
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        int size = instances.size();
+        if (size == 0) {
+            return new EmptyResponse();
+        }
+        if (size == 1) {
+            return new DefaultResponse(instances.getFirst());
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return new DefaultResponse(stats.cost(a) <= stats.cost(b) ? a : b);
+    }
+
+    @Override
+    public String toString() {
+        return "PeakEwmaLoadBalancer{serviceId=" + serviceId + "}";
+    }
+}
@@ -0,0 +1,30 @@
+package org.khr.microservice.common.loadbalancer;
+
+import org.khr.microservice.common.config.PeakEwmaProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * 每个服务的负载均衡子容器配置，由 @LoadBalancerClients 注册
+ * <p>
+ * 不能加 @Configuration：否则会被主容器扫描到，变成所有服务共用同一个负载均衡器。
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(
+        Environment environment, LoadBalancerClientFactory loadBalancerClientFactory,
+        PeakEwmaStats stats, PeakEwmaProperties properties) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        var supplier = loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class);
+        if (properties.getServices().contains(serviceId)) {
+            return new PeakEwmaLoadBalancer(supplier, serviceId, stats);
+        }
+        return new RoundRobinLoadBalancer(supplier, serviceId);
+    }
+}
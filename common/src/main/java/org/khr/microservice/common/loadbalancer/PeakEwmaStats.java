@@ -0,0 +1,100 @@
+package org.khr.microservice.common.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 每个服务实例的 Peak-EWMA 延迟和在途请求数，负载均衡器与生命周期回调共用
+ */
+public class PeakEwmaStats {
+
+    /**
+     * 还没有延迟数据但已有在途请求的实例，代价按一个很大的值计算，先去试探其他实例
+     */
+    private static final double PENALTY = Long.MAX_VALUE >> 16;
+
+    private final long decayNanos;
+
+    private final ConcurrentMap<String, InstanceStats> instances = new ConcurrentHashMap<>();
+
+    public PeakEwmaStats(Duration decay) {
+        this.decayNanos = Math.max(decay.toNanos(), 1);
+    }
+
+    /**
+     * 选择实例时的代价：延迟均值 × (在途请求数 + 1)
+     */
+    public double cost(ServiceInstance instance) {
+        return stats(instance).cost();
+    }
+
+    public void onStart(ServiceInstance instance) {
+        stats(instance).outstanding.incrementAndGet();
+    }
+
+    public void onComplete(ServiceInstance instance, long rttNanos) {
+        InstanceStats stats = stats(instance);
+        stats.outstanding.decrementAndGet();
+        stats.observe(rttNanos);
+    }
+
+    /**
+     * 请求被丢弃（未真正发出），只归还在途计数
+     */
+    public void onDiscard(ServiceInstance instance) {
+        stats(instance).outstanding.decrementAndGet();
+    }
+
+    static String key(ServiceInstance instance) {
+        return instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort();
+    }
+
+    private InstanceStats stats(ServiceInstance instance) {
+        String key = key(instance);
+        InstanceStats stats = instances.get(key);
+        return stats != null ? stats : instances.computeIfAbsent(key, _ -> new InstanceStats());
+    }
+
+    private final class InstanceStats {
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private double ewma;
+
+        private long stamp = System.nanoTime();
+
+        /**
+         * 比当前均值慢的样本直接取峰值，快的样本按时间衰减合入，
+         * 实例一变慢立刻降权，恢复后在 decay 时间内逐渐回到正常权重
+         */
+        synchronized void observe(double rttNanos) {
+            long now = System.nanoTime();
+            long elapsed = Math.max(now - stamp, 0);
+            stamp = now;
+            if (rttNanos > ewma) {
+                ewma = rttNanos;
+            } else {
+                double weight = Math.exp(-(double) elapsed / decayNanos);
+                ewma = ewma * weight + rttNanos * (1 - weight);
+            }
+        }
+
+        double cost() {
+            // 读取时按 0 延迟衰减，长时间没被选中的慢实例会逐渐重新获得流量
+            observe(0);
+            int active = Math.max(outstanding.get(), 0);
+            double current;
+            synchronized (this) {
+                current = ewma;
+            }
+            if (current == 0 && active > 0) {
+                return PENALTY + active;
+            }
+            return current * (active + 1);
+        }
+    }
+}
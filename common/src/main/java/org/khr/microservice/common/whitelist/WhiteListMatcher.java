@@ -0,0 +1,164 @@
+package org.khr.microservice.common.whitelist;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 白名单路径匹配器
+ * <p>
+ * 启动时把所有规则编译成一棵按字符展开的前缀树，匹配时只顺着请求路径走一遍，
+ * 与规则数量无关，也不分配对象。支持三种规则（按 / 分段）：
+ * <ul>
+ *     <li>精确匹配：{@code /api/users/login}</li>
+ *     <li>单段通配：段内容为 {@code *}，匹配任意一个非空段，如 {@code /api/users/{*}/profile}</li>
+ *     <li>前缀匹配：以 {@code /**} 结尾，匹配该路径本身及其所有子路径</li>
+ * </ul>
+ */
+public final class WhiteListMatcher {
+
+    private final Node root;
+
+    private final List<String> patterns;
+
+    private WhiteListMatcher(Node root, List<String> patterns) {
+        this.root = root;
+        this.patterns = patterns;
+    }
+
+    public static WhiteListMatcher compile(Collection<String> patterns) {
+        NodeBuilder root = new NodeBuilder();
+        for (String pattern : patterns) {
+            add(root, pattern.trim());
+        }
+        return new WhiteListMatcher(root.build(), List.copyOf(patterns));
+    }
+
+    public boolean matches(String path) {
+        if (path == null || path.isEmpty()) {
+            return false;
+        }
+        return matches(root, path, 0);
+    }
+
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    @Override
+    public String toString() {
+        return "WhiteListMatcher" + patterns;
+    }
+
+    private static void add(NodeBuilder root, String pattern) {
+        if (!pattern.startsWith("/")) {
+            throw new IllegalArgumentException("白名单规则必须以 / 开头: " + pattern);
+        }
+        String[] segments = pattern.substring(1).split("/", -1);
+        NodeBuilder node = root;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.equals("**")) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("** 只能出现在规则末尾: " + pattern);
+                }
+                node.prefix = true;
+                return;
+            }
+            node = node.child('/');
+            if (segment.equals("*")) {
+                if (node.star == null) {
+                    node.star = new NodeBuilder();
+                }
+                node = node.star;
+                continue;
+            }
+            if (segment.indexOf('*') >= 0) {
+                throw new IllegalArgumentException("* 必须独占一段: " + pattern);
+            }
+            for (int c = 0; c < segment.length(); c++) {
+                node = node.child(segment.charAt(c));
+            }
+        }
+        node.exact = true;
+    }
+
+    private static boolean matches(Node node, String path, int pos) {
+        int length = path.length();
+        while (true) {
+            // 前缀规则：剩余部分为空或从段边界开始
+            if (node.prefix && (pos == length || path.charAt(pos) == '/')) {
+                return true;
+            }
+            if (pos == length) {
+                return node.exact;
+            }
+            // 单段通配：跳过当前段后继续匹配，失败再回退走字面量分支
+            if (node.star != null) {
+                int end = path.indexOf('/', pos);
+                if (end < 0) {
+                    end = length;
+                }
+                if (end > pos && matches(node.star, path, end)) {
+                    return true;
+                }
+            }
+            node = node.child(path.charAt(pos));
+            if (node == null) {
+                return false;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * 编译后的只读节点，子节点按字符排序后二分查找
+     */
+    private static final class Node {
+
+        private final char[] keys;
+        private final Node[] children;
+        private final Node star;
+        private final boolean exact;
+        private final boolean prefix;
+
+        private Node(char[] keys, Node[] children, Node star, boolean exact, boolean prefix) {
+            this.keys = keys;
+            this.children = children;
+            this.star = star;
+            this.exact = exact;
+            this.prefix = prefix;
+        }
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static final class NodeBuilder {
+
+        private final Map<Character, NodeBuilder> children = new TreeMap<>();
+        private NodeBuilder star;
+        private boolean exact;
+        private boolean prefix;
+
+        private NodeBuilder child(char c) {
+            return children.computeIfAbsent(c, _ -> new NodeBuilder());
+        }
+
+        private Node build() {
+            char[] keys = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, NodeBuilder> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i] = entry.getValue().build();
+                i++;
+            }
+            return new Node(keys, nodes, star == null ? null : star.build(), exact, prefix);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.khr.microservice.common.id;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量插入基准：IDENTITY 主键（Hibernate 只能逐行 INSERT 并取回自增 ID）对比 Snowflake 主键（预先分配 ID，按 batch_size 批量提交）
+ * <p>
+ * 两种写法分别对应改动前后 Hibernate 实际发出的 JDBC 调用，表结构与 orders 相同。
+ * 运行：本地启动 MySQL（默认连接 microservice_db，可用 -Dbench.jdbc.url / -Dbench.jdbc.user / -Dbench.jdbc.password 覆盖），
+ * mvn -pl common test-compile 后直接执行 main 方法
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+
+    private static final String COLUMNS = """
+        user_id BIGINT NOT NULL, product_id BIGINT NOT NULL, quantity INT NOT NULL,
+        price DECIMAL(10, 2) NOT NULL, status VARCHAR(20) NOT NULL,
+        created_at DATETIME(6) NOT NULL, updated_at DATETIME(6)
+        """;
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private Connection connection;
+
+    private SnowflakeIdGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+            System.getProperty("bench.jdbc.url", "jdbc:mysql://localhost:3306/microservice_db?useSSL=false"
+                + "&serverTimezone=Asia/Tokyo&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true"),
+            System.getProperty("bench.jdbc.user", "root"),
+            System.getProperty("bench.jdbc.password", "admin123"));
+        connection.setAutoCommit(false);
+        generator = new SnowflakeIdGenerator(1);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS bench_orders_identity "
+                + "(id BIGINT AUTO_INCREMENT PRIMARY KEY, " + COLUMNS + ")");
+            statement.execute("CREATE TABLE IF NOT EXISTS bench_orders_snowflake "
+                + "(id BIGINT PRIMARY KEY, " + COLUMNS + ")");
+        }
+        connection.commit();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE bench_orders_identity");
+            statement.execute("TRUNCATE TABLE bench_orders_snowflake");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_orders_identity");
+            statement.execute("DROP TABLE IF EXISTS bench_orders_snowflake");
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    /**
+     * 改动前：每行一次往返，并取回自增主键
+     */
+    @Benchmark
+    public long identityPerRow() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement ps = connection.prepareStatement("""
+            INSERT INTO bench_orders_identity (user_id, product_id, quantity, price, status, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < rows; i++) {
+                bind(ps, 1, i);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    lastId = keys.getLong(1);
+                }
+            }
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    /**
+     * 改动后：主键在插入前生成，每 {@value #BATCH_SIZE} 行一次 executeBatch
+     */
+    @Benchmark
+    public long snowflakeBatch() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement ps = connection.prepareStatement("""
+            INSERT INTO bench_orders_snowflake (id, user_id, product_id, quantity, price, status, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """)) {
+            for (int i = 0; i < rows; i++) {
+                lastId = generator.nextId();
+                ps.setLong(1, lastId);
+                bind(ps, 2, i);
+                ps.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    private static void bind(PreparedStatement ps, int from, int i) throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        ps.setLong(from, 1000L + i % 100);
+        ps.setLong(from + 1, 1L + i % 20);
+        ps.setInt(from + 2, 1);
+        ps.setBigDecimal(from + 3, BigDecimal.valueOf(1999, 2));
+        ps.setString(from + 4, "PENDING");
+        ps.setTimestamp(from + 5, now);
+        ps.setTimestamp(from + 6, now);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(BulkInsertBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package org.khr.microservice.common.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.khr.microservice.common.config.PeakEwmaProperties;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 生命周期回调记录的延迟能让 P2C 避开慢实例
+ */
+class PeakEwmaLoadBalancerTest {
+
+    private static final String SERVICE_ID = "inventory-service";
+
+    private final ServiceInstance fast = new DefaultServiceInstance("fast", SERVICE_ID, "10.0.0.1", 8080, false);
+    private final ServiceInstance slow = new DefaultServiceInstance("slow", SERVICE_ID, "10.0.0.2", 8080, false);
+
+    private final PeakEwmaStats stats = new PeakEwmaStats(Duration.ofSeconds(10));
+    private final PeakEwmaLifecycle lifecycle = new PeakEwmaLifecycle(stats, properties());
+
+    @Test
+    void slowInstanceLosesTheChoice() throws Exception {
+        call(fast, 0);
+        call(slow, 50);
+
+        assertThat(stats.cost(slow)).isGreaterThan(stats.cost(fast));
+
+        PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(
+            new StaticListableBeanFactory(Map.of("supplier", supplier(fast, slow)))
+                .getBeanProvider(ServiceInstanceListSupplier.class),
+            SERVICE_ID, stats);
+        // 只有两个实例时每次都比较这两个，代价小的一方必定胜出
+        for (int i = 0; i < 20; i++) {
+            Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+            assertThat(response).isNotNull();
+            assertThat(response.getServer().getInstanceId()).isEqualTo("fast");
+        }
+    }
+
+    @Test
+    void abandonedAttemptOnlyReleasesOutstandingCount() {
+        AttemptHint hint = AttemptHint.first();
+        AttemptHint.bind(hint);
+        try {
+            Request<Object> request = new DefaultRequest<>();
+            Response<ServiceInstance> response = new DefaultResponse(slow);
+            lifecycle.onStartRequest(request, response);
+            hint.abandon();
+            // 被取消的尝试之后即使再收到完成回调，也不会记入延迟
+            lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED, request, response));
+        } finally {
+            AttemptHint.clear();
+        }
+        assertThat(stats.cost(slow)).isZero();
+    }
+
+    private void call(ServiceInstance instance, long latencyMillis) throws InterruptedException {
+        Request<Object> request = new DefaultRequest<>();
+        Response<ServiceInstance> response = new DefaultResponse(instance);
+        lifecycle.onStartRequest(request, response);
+        Thread.sleep(latencyMillis);
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response));
+    }
+
+    private static PeakEwmaProperties properties() {
+        PeakEwmaProperties properties = new PeakEwmaProperties();
+        properties.setServices(Set.of(SERVICE_ID));
+        return properties;
+    }
+
+    private static ServiceInstanceListSupplier supplier(ServiceInstance... instances) {
+        return new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(List.of(instances));
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package org.khr.microservice.common.whitelist;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 白名单匹配基准：旧的 Set.stream().anyMatch(startsWith) 对比编译后的前缀树
+ * <p>
+ * 运行：mvn -pl common test-compile 后直接执行 main 方法
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhiteListMatcherBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int rules;
+
+    private Set<String> whiteList;
+
+    private WhiteListMatcher matcher;
+
+    private String[] paths;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        whiteList = new HashSet<>();
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < rules; i++) {
+            String prefix = "/service" + i + "/api/resource" + i + "/public";
+            whiteList.add(prefix);
+            patterns.add(prefix + "/**");
+        }
+        matcher = WhiteListMatcher.compile(patterns);
+
+        // 大部分真实请求不在白名单内，命中与未命中按 1:3 混合
+        paths = new String[]{
+            "/orders/api/orders/10086",
+            "/service" + (rules - 1) + "/api/resource" + (rules - 1) + "/public/login",
+            "/inventorys/api/inventory/product/42",
+            "/service" + (rules / 2) + "/api/resource/other"
+        };
+    }
+
+    @Benchmark
+    public boolean streamStartsWith() {
+        String path = nextPath();
+        return whiteList.stream().anyMatch(path::startsWith);
+    }
+
+    @Benchmark
+    public boolean compiledTrie() {
+        return matcher.matches(nextPath());
+    }
+
+    private String nextPath() {
+        String path = paths[next];
+        next = (next + 1) & 3;
+        return path;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(WhiteListMatcherBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
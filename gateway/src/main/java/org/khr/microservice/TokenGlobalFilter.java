@@ -1,40 +1,35 @@
 package org.khr.microservice;
 
-import cn.hutool.json.JSONUtil;
-import cn.hutool.jwt.JWT;
-import cn.hutool.jwt.JWTUtil;
-import cn.hutool.jwt.JWTValidator;
+import lombok.RequiredArgsConstructor;
+import org.khr.microservice.auth.TokenVerificationException;
+import org.khr.microservice.auth.TokenVerifier;
+import org.khr.microservice.common.whitelist.WhiteListMatcher;
+import org.khr.microservice.support.GatewayFilterOrder;
+import org.khr.microservice.support.GatewayResponses;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-
 @Component
+@RequiredArgsConstructor
 public class TokenGlobalFilter implements GlobalFilter, Ordered {
 
-    private static final String TOKEN_SECRET = "your_secret_key";
-
     /**
-     * 白名单从 yml 注入
+     * 校验通过后把 userId 放入 exchange 属性，供后续过滤器（限流等）使用
      */
-    private static final Set<String> WHITE_LIST = Set.of(
-        "/users/api/users/login",
-        "/users/api/users/register",
-        "/actuator/health"
-    );
+    public static final String USER_ID_ATTR = TokenGlobalFilter.class.getName() + ".userId";
+
+    private final TokenVerifier tokenVerifier;
 
+    /**
+     * 白名单从 yml 注入（security.white-list.paths），启动时编译
+     */
+    private final WhiteListMatcher whiteListMatcher;
 
     @Override
     @SuppressWarnings("NullableProblems")
@@ -60,65 +55,42 @@ public class TokenGlobalFilter implements GlobalFilter, Ordered {
 
         String rawToken = token.substring(7);
 
+        String userId;
         try {
-            // ③ 解析 token
-            JWT jwt = JWTUtil.parseToken(rawToken);
-
-            // ④ 验签
-            boolean verify = jwt.setKey(TOKEN_SECRET.getBytes()).verify();
-            if (!verify) {
-                return writeUnauthorized(exchange, "Invalid Token Signature");
-            }
-
-            // ⑤ 校验过期时间
-            JWTValidator.of(rawToken).validateDate(new Date());
-
-            // ⑥ 提取用户信息
-            String userId = jwt.getPayload("userId").toString();
-
-            // ⑦ 下游注入 userId
-            ServerHttpRequest newRequest = exchange.getRequest().mutate()
-                .header("Authorization", token)
-                .header("X-UserId", userId)
-                .build();
-
-            return chain.filter(exchange.mutate().request(newRequest).build());
-
+            // ③ 验签 + 校验过期时间 + 提取用户信息（命中缓存时跳过解析）
+            userId = tokenVerifier.verify(rawToken);
+        } catch (TokenVerificationException e) {
+            return writeUnauthorized(exchange, e.getMessage());
         } catch (Exception e) {
             return writeUnauthorized(exchange, "Token Invalid or Expired");
         }
+
+        // ④ 下游注入 userId
+        exchange.getAttributes().put(USER_ID_ATTR, userId);
+        ServerHttpRequest newRequest = exchange.getRequest().mutate()
+            .header("Authorization", token)
+            .header("X-UserId", userId)
+            .build();
+
+        return chain.filter(exchange.mutate().request(newRequest).build());
     }
 
     @Override
     public int getOrder() {
-        return -1;
+        return GatewayFilterOrder.AUTH;
     }
 
     /**
-     * 白名单判断（路径前缀规则）
+     * 白名单判断
      */
     private boolean isWhiteList(String path) {
-        return WHITE_LIST.stream().anyMatch(path::startsWith);
+        return whiteListMatcher.matches(path);
     }
 
     /**
      * 返回 401 JSON
      */
     private Mono<Void> writeUnauthorized(ServerWebExchange exchange, String message) {
-        ServerHttpResponse response = exchange.getResponse();
-        response.setStatusCode(HttpStatus.UNAUTHORIZED);
-        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
-
-        Map<String, Object> body = new HashMap<>();
-        body.put("code", 401);
-        body.put("message", message);
-
-        try {
-            String jsonStr = JSONUtil.toJsonStr(body);
-            byte[] bytes = jsonStr.getBytes(StandardCharsets.UTF_8);
-            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
-        } catch (Exception e) {
-            return response.setComplete();
-        }
+        return GatewayResponses.writeJson(exchange, HttpStatus.UNAUTHORIZED, message);
     }
 }
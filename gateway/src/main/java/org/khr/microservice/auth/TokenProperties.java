@@ -0,0 +1,37 @@
+package org.khr.microservice.auth;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Token 校验相关配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.token")
+public class TokenProperties {
+
+    /**
+     * HMAC 签名密钥（需与 user-service 签发时一致）
+     */
+    private String secret = "your_secret_key";
+
+    private Cache cache = new Cache();
+
+    @Data
+    public static class Cache {
+
+        /**
+         * 最多缓存的已验签 token 数
+         */
+        private long maximumSize = 100_000;
+
+        /**
+         * token 没有 exp 声明时的最长缓存时间
+         */
+        private Duration maxTtl = Duration.ofMinutes(30);
+    }
+}
@@ -0,0 +1,11 @@
+package org.khr.microservice.auth;
+
+/**
+ * Token 校验失败，message 直接返回给客户端
+ */
+public class TokenVerificationException extends RuntimeException {
+
+    public TokenVerificationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,141 @@
+package org.khr.microservice.auth;
+
+import cn.hutool.jwt.JWT;
+import cn.hutool.jwt.JWTValidator;
+import cn.hutool.jwt.RegisteredPayload;
+import cn.hutool.jwt.signers.JWTSigner;
+import cn.hutool.jwt.signers.JWTSignerUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 校验 + 已验签 token 缓存
+ * <p>
+ * 同一个 token 会被反复发送，验签和两次解析都放在 Netty 事件循环上执行，
+ * 这里按 token 的 SHA-256 摘要缓存解析出的 userId，到 token 的 exp 为止失效。
+ */
+@Component
+public class TokenVerifier {
+
+    private final JWTSigner signer;
+
+    private final long maxTtlMillis;
+
+    private final Cache<TokenKey, VerifiedToken> cache;
+
+    public TokenVerifier(TokenProperties properties, MeterRegistry meterRegistry) {
+        // 签名密钥只在启动时解析一次
+        this.signer = JWTSignerUtil.hs256(properties.getSecret().getBytes(StandardCharsets.UTF_8));
+        this.maxTtlMillis = properties.getCache().getMaxTtl().toMillis();
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+            .maximumSize(properties.getCache().getMaximumSize())
+            .expireAfter(new ExpiresAtExpiry())
+            .recordStats()
+            .build(), "gateway.token.cache");
+    }
+
+    /**
+     * 校验 token，返回其中的 userId
+     *
+     * @throws TokenVerificationException 签名错误、已过期或缺少 userId
+     */
+    public String verify(String rawToken) {
+        TokenKey key = TokenKey.of(rawToken);
+        VerifiedToken cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.userId();
+        }
+
+        VerifiedToken verified = parseAndVerify(rawToken);
+        cache.put(key, verified);
+        return verified.userId();
+    }
+
+    private VerifiedToken parseAndVerify(String rawToken) {
+        JWT jwt;
+        try {
+            jwt = JWT.of(rawToken);
+        } catch (Exception e) {
+            throw new TokenVerificationException("Token Invalid or Expired");
+        }
+
+        // ① 验签
+        if (!jwt.verify(signer)) {
+            throw new TokenVerificationException("Invalid Token Signature");
+        }
+
+        // ② 校验 exp / nbf / iat
+        long now = System.currentTimeMillis();
+        try {
+            JWTValidator.of(jwt).validateDate(new Date(now));
+        } catch (Exception e) {
+            throw new TokenVerificationException("Token Invalid or Expired");
+        }
+
+        // ③ 提取用户信息
+        Object userId = jwt.getPayload("userId");
+        if (userId == null) {
+            throw new TokenVerificationException("Token Invalid or Expired");
+        }
+
+        // 没有 exp 的 token 最多缓存 maxTtl
+        Long exp = jwt.getPayloads().getLong(RegisteredPayload.EXPIRES_AT);
+        long expiresAt = exp == null
+            ? now + maxTtlMillis
+            : Math.min(TimeUnit.SECONDS.toMillis(exp), now + maxTtlMillis);
+        return new VerifiedToken(userId.toString(), expiresAt);
+    }
+
+    /**
+     * 缓存 key：token 的 SHA-256 前 128 位，不在内存中保留原始 token
+     */
+    record TokenKey(long high, long low) {
+
+        static TokenKey of(String rawToken) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(rawToken.getBytes(StandardCharsets.UTF_8));
+                ByteBuffer buffer = ByteBuffer.wrap(digest);
+                return new TokenKey(buffer.getLong(), buffer.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    record VerifiedToken(String userId, long expiresAtMillis) {
+    }
+
+    /**
+     * 每个条目在 token 的 exp 时刻过期，读取不续期
+     */
+    private static class ExpiresAtExpiry implements Expiry<TokenKey, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(TokenKey key, VerifiedToken value, long currentTime) {
+            long remaining = value.expiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenKey key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenKey key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
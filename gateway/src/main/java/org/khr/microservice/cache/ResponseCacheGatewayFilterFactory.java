@@ -0,0 +1,167 @@
+package org.khr.microservice.cache;
+
+import lombok.Data;
+import org.khr.microservice.cache.ResponseCacheStore.CacheKey;
+import org.khr.microservice.cache.ResponseCacheStore.CachedResponse;
+import org.khr.microservice.support.BodyCaptureResponseDecorator;
+import org.khr.microservice.support.BufferedResponse;
+import org.khr.microservice.support.GatewayFilterOrder;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 路由级响应缓存（yml 中 filters 配置 name: ResponseCache）
+ * <p>
+ * ① GET 命中缓存直接返回，If-None-Match 与 ETag 相同时返回 304
+ * ② 未命中时回源，缓冲 200 响应写入缓存并补充 ETag
+ * ③ 同一路由的 POST/PUT/PATCH/DELETE 在转发前后各失效一次该路由的缓存
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private static final String X_CACHE = "X-Cache";
+
+    private static final Set<HttpMethod> MUTATING_METHODS =
+        Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    private final ResponseCacheStore store;
+
+    private final long maxEntrySize;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCacheStore store, ResponseCacheProperties properties) {
+        super(Config.class);
+        this.store = store;
+        this.maxEntrySize = properties.getMaxEntrySize().toBytes();
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId();
+        long ttlNanos = config.getTtl().toNanos();
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            HttpMethod method = exchange.getRequest().getMethod();
+            if (MUTATING_METHODS.contains(method)) {
+                store.invalidate(routeId);
+                return chain.filter(exchange).doFinally(_ -> store.invalidate(routeId));
+            }
+            if (!HttpMethod.GET.equals(method)) {
+                return chain.filter(exchange);
+            }
+
+            CacheKey key = store.key(routeId, exchange, config.isVaryOnUser());
+            CachedResponse cached = store.get(key);
+            if (cached != null) {
+                return writeCached(exchange, routeId, cached);
+            }
+
+            BodyCaptureResponseDecorator response = new BodyCaptureResponseDecorator(exchange.getResponse(),
+                (captured, body) -> onUpstreamBody(exchange, key, ttlNanos, captured, body));
+            return chain.filter(exchange.mutate().response(response).build());
+        }, GatewayFilterOrder.RESPONSE_CACHE);
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, String routeId, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set(X_CACHE, "HIT");
+        if (etagMatches(exchange, cached.etag())) {
+            store.notModifiedCounter(routeId).increment();
+            return writeNotModified(response, cached.etag());
+        }
+        return cached.response().writeTo(response);
+    }
+
+    private Mono<Void> onUpstreamBody(ServerWebExchange exchange, CacheKey key, long ttlNanos,
+                                      BodyCaptureResponseDecorator response, byte[] body) {
+        if (!isCacheable(response, body)) {
+            return response.writeBody(body);
+        }
+        HttpHeaders headers = response.getHeaders();
+        String etag = headers.getETag();
+        if (etag == null) {
+            etag = generateETag(body);
+            headers.setETag(etag);
+        }
+        store.put(key, new CachedResponse(
+            BufferedResponse.copyOf(response.getStatusCode(), headers, body), etag, ttlNanos));
+
+        headers.set(X_CACHE, "MISS");
+        if (etagMatches(exchange, etag)) {
+            return writeNotModified(response, etag);
+        }
+        return response.writeBody(body);
+    }
+
+    private boolean isCacheable(ServerHttpResponse response, byte[] body) {
+        if (!HttpStatus.OK.equals(response.getStatusCode()) || body.length > maxEntrySize) {
+            return false;
+        }
+        HttpHeaders headers = response.getHeaders();
+        if (headers.getFirst(HttpHeaders.SET_COOKIE) != null) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        return cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private"));
+    }
+
+    private static Mono<Void> writeNotModified(ServerHttpResponse response, String etag) {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        response.getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+        response.getHeaders().setETag(etag);
+        return response.setComplete();
+    }
+
+    private static boolean etagMatches(ServerWebExchange exchange, String etag) {
+        List<String> ifNoneMatch = exchange.getRequest().getHeaders().getIfNoneMatch();
+        String expected = stripWeak(etag);
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || expected.equals(stripWeak(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * 与 Spring ShallowEtagHeaderFilter 相同的强 ETag 格式
+     */
+    private static String generateETag(byte[] body) {
+        return "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    @Data
+    public static class Config implements HasRouteId {
+
+        /**
+         * 缓存有效期
+         */
+        private Duration ttl = Duration.ofSeconds(5);
+
+        /**
+         * 响应与当前用户相关时打开，缓存 key 会带上 X-UserId
+         */
+        private boolean varyOnUser = false;
+
+        private String routeId;
+    }
+}
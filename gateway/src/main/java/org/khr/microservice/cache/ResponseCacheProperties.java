@@ -0,0 +1,25 @@
+package org.khr.microservice.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 网关响应缓存（所有路由共用一个按字节计重的存储）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * 缓存总大小上限（按响应体字节数计）
+     */
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 单个响应超过该大小不缓存
+     */
+    private DataSize maxEntrySize = DataSize.ofKilobytes(512);
+}
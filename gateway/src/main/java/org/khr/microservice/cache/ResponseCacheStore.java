@@ -0,0 +1,105 @@
+package org.khr.microservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.khr.microservice.TokenGlobalFilter;
+import org.khr.microservice.support.BufferedResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 响应缓存存储
+ * <p>
+ * 按响应体字节数计重，每个条目使用所属路由配置的 TTL。
+ * 每个路由维护一个代数（generation），失效时代数加一，旧代数的 key 再也不会被查到，
+ * 正在回源的旧请求即使稍后写入也只会写到旧代数下，不会把脏数据带回来。
+ */
+@Component
+public class ResponseCacheStore {
+
+    /**
+     * 估算的 key + 响应头开销
+     */
+    private static final int ENTRY_OVERHEAD = 512;
+
+    private final Cache<CacheKey, CachedResponse> cache;
+
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    public ResponseCacheStore(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+            .maximumWeight(properties.getMaximumSize().toBytes())
+            .<CacheKey, CachedResponse>weigher((_, value) -> value.response().body().length + ENTRY_OVERHEAD)
+            .expireAfter(new PerRouteTtl())
+            .recordStats()
+            .build(), "gateway.response.cache");
+    }
+
+    public CacheKey key(String routeId, ServerWebExchange exchange, boolean varyOnUser) {
+        URI uri = exchange.getRequest().getURI();
+        String userId = varyOnUser ? exchange.getAttribute(TokenGlobalFilter.USER_ID_ATTR) : null;
+        return new CacheKey(routeId, generation(routeId), uri.getRawPath(), uri.getRawQuery(), userId);
+    }
+
+    public CachedResponse get(CacheKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(CacheKey key, CachedResponse response) {
+        cache.put(key, response);
+    }
+
+    /**
+     * 使该路由下的全部缓存失效
+     */
+    public void invalidate(String routeId) {
+        generations.computeIfAbsent(routeId, _ -> new AtomicLong()).incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.routeId().equals(routeId));
+        meterRegistry.counter("gateway.response.cache.invalidations", "route", routeId).increment();
+    }
+
+    public Counter notModifiedCounter(String routeId) {
+        return meterRegistry.counter("gateway.response.cache.not-modified", "route", routeId);
+    }
+
+    private long generation(String routeId) {
+        AtomicLong generation = generations.get(routeId);
+        return generation == null ? 0 : generation.get();
+    }
+
+    public record CacheKey(String routeId, long generation, String path, String query, String userId) {
+    }
+
+    public record CachedResponse(BufferedResponse response, String etag, long ttlNanos) {
+    }
+
+    private static class PerRouteTtl implements Expiry<CacheKey, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(CacheKey key, CachedResponse value, long currentTime) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(CacheKey key, CachedResponse value, long currentTime, long currentDuration) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(CacheKey key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.khr.microservice.coalesce;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.khr.microservice.TokenGlobalFilter;
+import org.khr.microservice.support.BodyCaptureResponseDecorator;
+import org.khr.microservice.support.BufferedResponse;
+import org.khr.microservice.support.GatewayFilterOrder;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 相同 GET 请求合并回源（single-flight，yml 中 filters 配置 name: SingleFlight）
+ * <p>
+ * 第一个请求正常回源并缓冲响应；回源期间到达的相同请求挂在它上面，拿到同一份响应后直接返回。
+ * 响应写完即从表中移除，不做任何缓存，所以不会返回过期数据。
+ * 领头请求失败、被取消、响应过大或为流式响应时，跟随者各自回源。
+ */
+@Component
+public class SingleFlightGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<SingleFlightGatewayFilterFactory.Config> {
+
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlightGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        ConcurrentMap<FlightKey, Flight> inFlight = new ConcurrentHashMap<>();
+        long maxBodySize = config.getMaxBodySize().toBytes();
+        Counter coalesced = meterRegistry.counter("gateway.singleflight.coalesced", "route", config.getRouteId());
+        Counter overflow = meterRegistry.counter("gateway.singleflight.overflow", "route", config.getRouteId());
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (!HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+                return chain.filter(exchange);
+            }
+
+            FlightKey key = FlightKey.of(exchange, config.isVaryOnUser());
+            Flight flight = new Flight();
+            Flight existing = inFlight.putIfAbsent(key, flight);
+
+            // ① 已有相同请求在回源：挂上去等结果
+            if (existing != null) {
+                if (existing.followers.incrementAndGet() > config.getMaxFanIn()) {
+                    overflow.increment();
+                    return chain.filter(exchange);
+                }
+                coalesced.increment();
+                return existing.result.asMono()
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(shared -> shared.isPresent()
+                        ? shared.get().writeTo(exchange.getResponse())
+                        : chain.filter(exchange));
+            }
+
+            // ② 自己是领头请求：回源并把缓冲后的响应分享出去
+            BodyCaptureResponseDecorator response = new BodyCaptureResponseDecorator(exchange.getResponse(),
+                (captured, body) -> {
+                    inFlight.remove(key, flight);
+                    if (body.length <= maxBodySize) {
+                        flight.result.tryEmitValue(
+                            BufferedResponse.copyOf(captured.getStatusCode(), captured.getHeaders(), body));
+                    } else {
+                        flight.result.tryEmitEmpty();
+                    }
+                    return captured.writeBody(body);
+                });
+            return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(_ -> {
+                    inFlight.remove(key, flight);
+                    flight.result.tryEmitEmpty();
+                });
+        }, GatewayFilterOrder.SINGLE_FLIGHT);
+    }
+
+    private record FlightKey(String path, String query, String userId) {
+
+        static FlightKey of(ServerWebExchange exchange, boolean varyOnUser) {
+            URI uri = exchange.getRequest().getURI();
+            String userId = varyOnUser ? exchange.getAttribute(TokenGlobalFilter.USER_ID_ATTR) : null;
+            return new FlightKey(uri.getRawPath(), uri.getRawQuery(), userId);
+        }
+    }
+
+    private static final class Flight {
+
+        private final Sinks.One<BufferedResponse> result = Sinks.one();
+
+        private final AtomicInteger followers = new AtomicInteger();
+    }
+
+    @Data
+    public static class Config implements HasRouteId {
+
+        /**
+         * 单个回源请求最多挂多少个跟随者，超出的各自回源
+         */
+        private int maxFanIn = 200;
+
+        /**
+         * 响应体超过该大小时不分享
+         */
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+        /**
+         * 响应与当前用户相关时打开，只合并同一用户的请求
+         */
+        private boolean varyOnUser = false;
+
+        private String routeId;
+    }
+}
@@ -0,0 +1,153 @@
+package org.khr.microservice.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 按路由的自适应并发限制
+ * <p>
+ * 每个路由一个 {@link GradientLimit}，根据下游延迟自动调整允许的在途请求数，超出直接拒绝。
+ * 低优先级请求只能用到上限的一部分，下游变慢时先被拒绝，高优先级请求（如下单）还有余量。
+ */
+@Component
+@RequiredArgsConstructor
+public class AdaptiveConcurrencyLimiter {
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, RouteLimiter> routeLimiters = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试占用一个并发名额
+     *
+     * @return 占用成功返回 Permit，请求结束后必须释放；超限返回 null
+     */
+    public Permit tryAcquire(String routeId, HttpMethod method) {
+        if (!properties.isEnabled()) {
+            return Permit.NOOP;
+        }
+        RouteLimiter limiter = routeLimiters.get(routeId);
+        if (limiter == null) {
+            limiter = routeLimiters.computeIfAbsent(routeId, this::createLimiter);
+        }
+        return limiter.tryAcquire(method);
+    }
+
+    private RouteLimiter createLimiter(String routeId) {
+        ConcurrencyLimitProperties.Limit config = properties.getRoutes()
+            .getOrDefault(routeId, properties.getDefaultLimit());
+        if (config == null) {
+            return RouteLimiter.UNLIMITED;
+        }
+        Set<HttpMethod> highPriorityMethods = config.getHighPriorityMethods().stream()
+            .map(HttpMethod::valueOf)
+            .collect(Collectors.toUnmodifiableSet());
+        RouteLimiter limiter = new RouteLimiter(new GradientLimit(config), new AtomicInteger(),
+            config.getLowPriorityShare(), highPriorityMethods,
+            shedCounter(routeId, "high"), shedCounter(routeId, "low"));
+
+        Gauge.builder("gateway.concurrency.limit", limiter.limit(), GradientLimit::getLimit)
+            .tag("route", routeId)
+            .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter.inflight(), AtomicInteger::get)
+            .tag("route", routeId)
+            .register(meterRegistry);
+        return limiter;
+    }
+
+    private Counter shedCounter(String routeId, String priority) {
+        return Counter.builder("gateway.concurrency.shed")
+            .tag("route", routeId)
+            .tag("priority", priority)
+            .register(meterRegistry);
+    }
+
+    private record RouteLimiter(GradientLimit limit, AtomicInteger inflight, double lowPriorityShare,
+                                Set<HttpMethod> highPriorityMethods, Counter shedHigh, Counter shedLow) {
+
+        static final RouteLimiter UNLIMITED = new RouteLimiter(null, null, 1, Set.of(), null, null);
+
+        Permit tryAcquire(HttpMethod method) {
+            if (limit == null) {
+                return Permit.NOOP;
+            }
+            boolean highPriority = highPriorityMethods.contains(method);
+            int max = limit.getLimit();
+            int allowed = highPriority ? max : Math.max(1, (int) (max * lowPriorityShare));
+            while (true) {
+                int current = inflight.get();
+                if (current >= allowed) {
+                    (highPriority ? shedHigh : shedLow).increment();
+                    return null;
+                }
+                if (inflight.compareAndSet(current, current + 1)) {
+                    return new Permit(this, System.nanoTime(), current + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * 已占用的并发名额，只能释放一次
+     */
+    public static final class Permit {
+
+        static final Permit NOOP = new Permit(null, 0, 0);
+
+        private final RouteLimiter owner;
+        private final long startNanos;
+        private final int inflightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(RouteLimiter owner, long startNanos, int inflightAtStart) {
+            this.owner = owner;
+            this.startNanos = startNanos;
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        /**
+         * 请求正常结束，耗时计入延迟样本
+         */
+        public void onSuccess() {
+            if (release()) {
+                owner.limit().onSample(System.nanoTime() - startNanos, inflightAtStart);
+            }
+        }
+
+        /**
+         * 下游超时或不可用，收缩上限
+         */
+        public void onDropped() {
+            if (release()) {
+                owner.limit().onDrop();
+            }
+        }
+
+        /**
+         * 客户端取消等与下游无关的结束，只归还名额
+         */
+        public void onIgnore() {
+            release();
+        }
+
+        private boolean release() {
+            if (owner == null || !released.compareAndSet(false, true)) {
+                return false;
+            }
+            owner.inflight().decrementAndGet();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.khr.microservice.concurrency;
+
+import lombok.RequiredArgsConstructor;
+import org.khr.microservice.support.GatewayFilterOrder;
+import org.khr.microservice.support.GatewayResponses;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * 按路由限制在途请求数，超限直接返回 503，避免下游变慢时请求在网关无限堆积
+ * <p>
+ * 排在响应缓存、请求合并之后，命中缓存或被合并的请求不占名额。
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitGlobalFilter implements GlobalFilter, Ordered {
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Override
+    @SuppressWarnings("NullableProblems")
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        AdaptiveConcurrencyLimiter.Permit permit =
+            concurrencyLimiter.tryAcquire(route.getId(), exchange.getRequest().getMethod());
+        if (permit == null) {
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return GatewayResponses.writeJson(exchange, HttpStatus.SERVICE_UNAVAILABLE, "Service Busy");
+        }
+
+        return chain.filter(exchange)
+            .doFinally(signal -> {
+                switch (signal) {
+                    case ON_COMPLETE -> {
+                        if (isOverloaded(exchange.getResponse().getStatusCode())) {
+                            permit.onDropped();
+                        } else {
+                            permit.onSuccess();
+                        }
+                    }
+                    case ON_ERROR -> permit.onDropped();
+                    default -> permit.onIgnore();
+                }
+            });
+    }
+
+    /**
+     * 只有 503/504 说明下游过载；500 等业务错误仍按正常延迟样本处理
+     */
+    private static boolean isOverloaded(HttpStatusCode status) {
+        return status != null
+            && (status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+            || status.value() == HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+
+    @Override
+    public int getOrder() {
+        return GatewayFilterOrder.CONCURRENCY_LIMIT;
+    }
+}
@@ -0,0 +1,63 @@
+package org.khr.microservice.concurrency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按路由的自适应并发限制配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 未单独配置的路由使用的参数，为空表示不限制
+     */
+    private Limit defaultLimit;
+
+    /**
+     * key 为路由 id
+     */
+    private Map<String, Limit> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Limit {
+
+        /**
+         * 启动时的并发上限，之后根据下游延迟自动调整
+         */
+        private int initialLimit = 20;
+
+        private int minLimit = 4;
+
+        private int maxLimit = 200;
+
+        /**
+         * 允许的延迟上涨倍数，短期 RTT 超过长期 RTT 的该倍数后开始收缩上限
+         */
+        private double tolerance = 1.5;
+
+        /**
+         * 每次调整向新值靠拢的比例
+         */
+        private double smoothing = 0.2;
+
+        /**
+         * 低优先级请求最多只能占用上限的该比例，剩余部分留给高优先级请求
+         */
+        private double lowPriorityShare = 0.8;
+
+        /**
+         * 走高优先级通道的请求方法
+         */
+        private List<String> highPriorityMethods = List.of("POST");
+    }
+}
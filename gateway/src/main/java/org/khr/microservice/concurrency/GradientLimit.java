@@ -0,0 +1,78 @@
+package org.khr.microservice.concurrency;
+
+/**
+ * 基于延迟梯度的并发上限估算（思路同 Netflix concurrency-limits 的 Gradient2）
+ * <p>
+ * 维护短期、长期两个 RTT 指数均值：短期 RTT 明显高于长期 RTT 说明下游开始排队，
+ * 上限按 长期/短期 的比值收缩；否则每次最多增加 sqrt(limit) 试探更高的并发。
+ * 每个响应调用一次，计算量很小，直接加锁。
+ */
+final class GradientLimit {
+
+    private static final double LONG_ALPHA = 2.0 / (600 + 1);
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private double estimatedLimit;
+    private double longRtt;
+    private double shortRtt;
+    private boolean warmedUp;
+
+    private volatile int limit;
+
+    GradientLimit(ConcurrencyLimitProperties.Limit config) {
+        this.minLimit = Math.max(1, config.getMinLimit());
+        this.maxLimit = Math.max(minLimit, config.getMaxLimit());
+        this.tolerance = Math.max(1.0, config.getTolerance());
+        this.smoothing = config.getSmoothing();
+        update(config.getInitialLimit());
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @param rttNanos 本次请求耗时
+     * @param inflight 请求开始时的并发数
+     */
+    synchronized void onSample(long rttNanos, int inflight) {
+        if (!warmedUp) {
+            longRtt = shortRtt = rttNanos;
+            warmedUp = true;
+            return;
+        }
+        shortRtt += (rttNanos - shortRtt) * SHORT_ALPHA;
+        longRtt += (rttNanos - longRtt) * LONG_ALPHA;
+
+        // 负载已经下降但长期均值还没跟上，加快回落，避免上限迟迟不涨
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // 实际并发远低于上限时，样本说明不了上限是否合适
+        if (inflight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        update(estimatedLimit * (1 - smoothing) + newLimit * smoothing);
+    }
+
+    /**
+     * 下游超时、不可用时直接按比例收缩
+     */
+    synchronized void onDrop() {
+        update(estimatedLimit * BACKOFF_RATIO);
+    }
+
+    private void update(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,96 @@
+package org.khr.microservice.hedge;
+
+import org.khr.microservice.common.loadbalancer.AttemptHint;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 对冲中的一次尝试
+ * <p>
+ * 负载均衡、路由过滤器会往 exchange 属性和响应头里写东西，每次尝试用独立的属性表和响应，
+ * 胜出后再通过 {@link #copyTo} 合并回原 exchange，由 NettyWriteResponseFilter 照常写出响应体。
+ */
+final class AttemptExchange extends ServerWebExchangeDecorator {
+
+    private final Map<String, Object> attributes;
+
+    private final AttemptResponse response;
+
+    private final AttemptHint hint;
+
+    AttemptExchange(ServerWebExchange delegate, AttemptHint hint) {
+        super(delegate);
+        this.attributes = new HashMap<>(delegate.getAttributes());
+        this.attributes.put(AttemptHint.ATTRIBUTE, hint);
+        this.response = new AttemptResponse(delegate.getResponse());
+        this.hint = hint;
+    }
+
+    AttemptHint getHint() {
+        return hint;
+    }
+
+    @Override
+    @SuppressWarnings("NullableProblems")
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    @SuppressWarnings("NullableProblems")
+    public ServerHttpResponse getResponse() {
+        return response;
+    }
+
+    void copyTo(ServerWebExchange target) {
+        target.getAttributes().putAll(attributes);
+        ServerHttpResponse targetResponse = target.getResponse();
+        if (response.status != null) {
+            targetResponse.setStatusCode(response.status);
+        }
+        targetResponse.getHeaders().addAll(response.headers);
+    }
+
+    /**
+     * 只记录状态码和响应头，不写出任何内容
+     */
+    private static final class AttemptResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private HttpStatusCode status;
+
+        AttemptResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        @SuppressWarnings("NullableProblems")
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+    }
+}
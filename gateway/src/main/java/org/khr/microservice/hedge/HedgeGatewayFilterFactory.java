@@ -0,0 +1,110 @@
+package org.khr.microservice.hedge;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.khr.microservice.common.config.HedgeProperties;
+import org.khr.microservice.common.hedge.HedgePolicy;
+import org.khr.microservice.common.loadbalancer.AttemptHint;
+import org.khr.microservice.support.GatewayFilterOrder;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * GET 请求对冲（yml 中 filters 配置 name: Hedge）
+ * <p>
+ * 第一次尝试超过最近延迟的分位数仍未收到响应头时，在预算内向另一个实例再发一次，
+ * 先成功收到响应头的一方胜出，另一方被取消。任一方失败时继续等另一方；两方都失败时返回第一次尝试的错误。
+ * 对冲发出之前第一次尝试就失败的，不再对冲，直接返回错误。
+ * 策略计算见 {@link HedgePolicy}，指标为 hedge.fired / hedge.won（policy 标签为路由 id）。
+ */
+@Component
+public class HedgeGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgeGatewayFilterFactory.Config> {
+
+    private final MeterRegistry meterRegistry;
+
+    public HedgeGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        HedgePolicy policy = new HedgePolicy(config.getRouteId(), config.toPolicy(), meterRegistry);
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (!HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+                return chain.filter(exchange);
+            }
+
+            long start = System.nanoTime();
+            policy.onRequest();
+            AttemptExchange primary = new AttemptExchange(exchange, AttemptHint.first());
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Sinks.One<Boolean> primaryFailed = Sinks.one();
+            Mono<AttemptExchange> primaryAttempt = attempt(primary, chain.filter(primary))
+                .doOnError(e -> {
+                    primaryError.set(e);
+                    primaryFailed.tryEmitValue(Boolean.TRUE);
+                });
+
+            long delay = policy.hedgeDelayNanos();
+            Mono<AttemptExchange> hedgeAttempt = delay == Long.MAX_VALUE
+                ? Mono.empty()
+                : Mono.delay(Duration.ofNanos(delay))
+                    // 第一次尝试在对冲发出前失败：不再对冲
+                    .takeUntilOther(primaryFailed.asMono())
+                    .filter(_ -> policy.tryHedge())
+                    .flatMap(_ -> {
+                        AttemptExchange hedge = new AttemptExchange(exchange, primary.getHint().next());
+                        return attempt(hedge, chain.filter(hedge));
+                    });
+
+            // 按第一个成功值竞争：一方失败不会取消另一方
+            return Mono.firstWithValue(primaryAttempt, hedgeAttempt)
+                .onErrorMap(e -> primaryError.get() != null ? primaryError.get() : e)
+                .doOnNext(winner -> {
+                    policy.record(System.nanoTime() - start);
+                    if (winner != primary) {
+                        policy.onHedgeWon();
+                    }
+                    winner.copyTo(exchange);
+                })
+                .then();
+        }, GatewayFilterOrder.HEDGE);
+    }
+
+    private static Mono<AttemptExchange> attempt(AttemptExchange attempt, Mono<Void> routing) {
+        // 被取消的一方不会再走负载均衡的完成回调，在这里归还它的在途计数
+        return routing.thenReturn(attempt)
+            .doOnCancel(() -> attempt.getHint().abandon());
+    }
+
+    @Data
+    public static class Config implements HasRouteId {
+
+        private double percentile = 0.95;
+
+        private Duration minDelay = Duration.ofMillis(10);
+
+        private double budgetPercent = 5;
+
+        private String routeId;
+
+        HedgeProperties.Policy toPolicy() {
+            HedgeProperties.Policy policy = new HedgeProperties.Policy();
+            policy.setPercentile(percentile);
+            policy.setMinDelay(minDelay);
+            policy.setBudgetPercent(budgetPercent);
+            return policy;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.khr.microservice.latency;
+
+import org.khr.microservice.support.GatewayFilterOrder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LatencyConfig {
+
+    /**
+     * token 校验通过
+     */
+    @Bean
+    public PhaseMarkerGlobalFilter authDoneMarker() {
+        return new PhaseMarkerGlobalFilter(GatewayFilterOrder.AUTH_DONE, LatencyGlobalFilter.AUTH_DONE_ATTR, null);
+    }
+
+    /**
+     * 开始转发到下游 / 收到下游响应头（NettyRoutingFilter 在拿到响应头后完成）
+     */
+    @Bean
+    public PhaseMarkerGlobalFilter upstreamMarker() {
+        return new PhaseMarkerGlobalFilter(GatewayFilterOrder.UPSTREAM,
+            LatencyGlobalFilter.UPSTREAM_START_ATTR, LatencyGlobalFilter.UPSTREAM_END_ATTR);
+    }
+}
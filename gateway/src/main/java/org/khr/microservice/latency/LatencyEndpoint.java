@@ -0,0 +1,79 @@
+package org.khr.microservice.latency;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/latency：按路由查看最近一个滑动窗口内各阶段的延迟分位数（毫秒）
+ */
+@Component
+@Endpoint(id = "latency")
+@RequiredArgsConstructor
+public class LatencyEndpoint {
+
+    private final LatencyRecorder recorder;
+
+    @ReadOperation
+    public Map<String, List<Map<String, Object>>> latency() {
+        Map<String, List<Map<String, Object>>> result = new TreeMap<>();
+        for (LatencyRecorder.Key key : sortedKeys()) {
+            result.computeIfAbsent(key.route(), _ -> new ArrayList<>()).add(describe(key));
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> latency(@Selector String route) {
+        return sortedKeys().stream()
+            .filter(key -> key.route().equals(route))
+            .map(this::describe)
+            .toList();
+    }
+
+    private List<LatencyRecorder.Key> sortedKeys() {
+        return recorder.keys().stream()
+            .sorted(Comparator.comparing(LatencyRecorder.Key::route)
+                .thenComparing(LatencyRecorder.Key::phase)
+                .thenComparing(LatencyRecorder.Key::status)
+                .thenComparing(LatencyRecorder.Key::instance))
+            .toList();
+    }
+
+    private Map<String, Object> describe(LatencyRecorder.Key key) {
+        Timer timer = recorder.timer(key);
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("phase", key.phase().getTag());
+        entry.put("status", key.status());
+        entry.put("instance", key.instance());
+        entry.put("count", snapshot.count());
+        entry.put("mean", snapshot.mean(TimeUnit.MILLISECONDS));
+        entry.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            entry.put("p" + format(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return entry;
+    }
+
+    /**
+     * 0.5 -> 50，0.99 -> 99，0.999 -> 99.9
+     */
+    private static String format(double percentile) {
+        String value = Double.toString(percentile * 100);
+        return value.endsWith(".0") ? value.substring(0, value.length() - 2) : value;
+    }
+}
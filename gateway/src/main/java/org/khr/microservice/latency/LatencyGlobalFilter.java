@@ -0,0 +1,90 @@
+package org.khr.microservice.latency;
+
+import lombok.RequiredArgsConstructor;
+import org.khr.microservice.support.GatewayFilterOrder;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Map;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * 请求结束时按各阶段标记的时间点记录延迟
+ * <p>
+ * 时间点由 {@link PhaseMarkerGlobalFilter} 写入 exchange 属性，只记录 System.nanoTime()，不额外分配对象。
+ */
+@Component
+@RequiredArgsConstructor
+public class LatencyGlobalFilter implements GlobalFilter, Ordered {
+
+    static final String START_ATTR = LatencyGlobalFilter.class.getName() + ".start";
+    static final String AUTH_DONE_ATTR = LatencyGlobalFilter.class.getName() + ".authDone";
+    static final String UPSTREAM_START_ATTR = LatencyGlobalFilter.class.getName() + ".upstreamStart";
+    static final String UPSTREAM_END_ATTR = LatencyGlobalFilter.class.getName() + ".upstreamEnd";
+
+    private static final String NONE = "none";
+
+    private final LatencyRecorder recorder;
+
+    @Override
+    @SuppressWarnings("NullableProblems")
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        exchange.getAttributes().put(START_ATTR, start);
+        return chain.filter(exchange)
+            .doFinally(_ -> record(exchange, start, System.nanoTime()));
+    }
+
+    private void record(ServerWebExchange exchange, long start, long end) {
+        Map<String, Object> attributes = exchange.getAttributes();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : NONE;
+        String status = statusClass(exchange.getResponse().getStatusCode());
+        String instance = instance(exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+
+        recorder.record(routeId, LatencyRecorder.Phase.TOTAL, status, instance, end - start);
+
+        Long authDone = (Long) attributes.get(AUTH_DONE_ATTR);
+        if (authDone != null) {
+            recorder.record(routeId, LatencyRecorder.Phase.AUTH, status, instance, authDone - start);
+        }
+        Long upstreamStart = (Long) attributes.get(UPSTREAM_START_ATTR);
+        if (upstreamStart == null) {
+            return;
+        }
+        recorder.record(routeId, LatencyRecorder.Phase.ROUTING, status, instance,
+            upstreamStart - (authDone != null ? authDone : start));
+        Long upstreamEnd = (Long) attributes.get(UPSTREAM_END_ATTR);
+        if (upstreamEnd != null) {
+            recorder.record(routeId, LatencyRecorder.Phase.UPSTREAM, status, instance, upstreamEnd - upstreamStart);
+        }
+    }
+
+    private static String statusClass(HttpStatusCode status) {
+        return status != null ? (status.value() / 100) + "xx" : NONE;
+    }
+
+    /**
+     * 负载均衡之后请求地址已替换为实例地址
+     */
+    private static String instance(URI url) {
+        if (url == null || url.getHost() == null || "lb".equals(url.getScheme())) {
+            return NONE;
+        }
+        return url.getPort() > 0 ? url.getHost() + ":" + url.getPort() : url.getHost();
+    }
+
+    @Override
+    public int getOrder() {
+        return GatewayFilterOrder.LATENCY;
+    }
+}
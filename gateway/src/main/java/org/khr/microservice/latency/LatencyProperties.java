@@ -0,0 +1,32 @@
+package org.khr.microservice.latency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关延迟直方图配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.latency")
+public class LatencyProperties {
+
+    private boolean enabled = true;
+
+    private List<Double> percentiles = new ArrayList<>(List.of(0.5, 0.99, 0.999));
+
+    /**
+     * 滑动窗口长度，分位数只反映最近这段时间的请求
+     */
+    private Duration expiry = Duration.ofMinutes(1);
+
+    /**
+     * 窗口内轮转的直方图个数，越多窗口滑动越平滑
+     */
+    private int bufferLength = 3;
+}
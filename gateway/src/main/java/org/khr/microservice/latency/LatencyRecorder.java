@@ -0,0 +1,98 @@
+package org.khr.microservice.latency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 (路由, 阶段, 状态码类别, 实例) 记录网关延迟
+ * <p>
+ * 底层是 Micrometer Timer：分位数由 HdrHistogram 的 Recorder 无锁记录，
+ * 按 expiry / bufferLength 轮转实现滑动窗口。Timer 按标签组合缓存，热路径只有一次 map 查找。
+ */
+@Component
+@RequiredArgsConstructor
+public class LatencyRecorder {
+
+    public static final String METER_NAME = "gateway.latency";
+
+    private final LatencyProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<Key, Timer> timers = new ConcurrentHashMap<>();
+
+    public void record(String route, Phase phase, String status, String instance, long nanos) {
+        if (!properties.isEnabled() || nanos < 0) {
+            return;
+        }
+        Key key = new Key(route, phase, status, instance);
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, this::register);
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    Collection<Key> keys() {
+        return Collections.unmodifiableSet(timers.keySet());
+    }
+
+    Timer timer(Key key) {
+        return timers.get(key);
+    }
+
+    private Timer register(Key key) {
+        return Timer.builder(METER_NAME)
+            .tag("route", key.route())
+            .tag("phase", key.phase().getTag())
+            .tag("status", key.status())
+            .tag("instance", key.instance())
+            .publishPercentiles(properties.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray())
+            .distributionStatisticExpiry(properties.getExpiry())
+            .distributionStatisticBufferLength(properties.getBufferLength())
+            .register(meterRegistry);
+    }
+
+    record Key(String route, Phase phase, String status, String instance) {
+    }
+
+    public enum Phase {
+
+        /**
+         * 网关收到请求到响应写完
+         */
+        TOTAL("total"),
+
+        /**
+         * token 校验
+         */
+        AUTH("auth"),
+
+        /**
+         * 校验通过到开始转发：限流、缓存、负载均衡选实例等
+         */
+        ROUTING("routing"),
+
+        /**
+         * 开始转发到收到下游响应头
+         */
+        UPSTREAM("upstream");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+}
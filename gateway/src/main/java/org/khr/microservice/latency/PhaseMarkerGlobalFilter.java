@@ -0,0 +1,43 @@
+package org.khr.microservice.latency;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 在过滤器链的固定位置记录时间点，供 {@link LatencyGlobalFilter} 计算各阶段耗时
+ */
+public class PhaseMarkerGlobalFilter implements GlobalFilter, Ordered {
+
+    private final int order;
+    private final String startAttr;
+    private final String endAttr;
+
+    /**
+     * @param startAttr 进入该位置时写入的属性
+     * @param endAttr   后续链路完成时写入的属性，为 null 则不记录
+     */
+    PhaseMarkerGlobalFilter(int order, String startAttr, String endAttr) {
+        this.order = order;
+        this.startAttr = startAttr;
+        this.endAttr = endAttr;
+    }
+
+    @Override
+    @SuppressWarnings("NullableProblems")
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        exchange.getAttributes().put(startAttr, System.nanoTime());
+        if (endAttr == null) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+            .doOnSuccess(_ -> exchange.getAttributes().put(endAttr, System.nanoTime()));
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+}
@@ -0,0 +1,56 @@
+package org.khr.microservice.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.khr.microservice.TokenGlobalFilter;
+import org.khr.microservice.support.GatewayFilterOrder;
+import org.khr.microservice.support.GatewayResponses;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * 按 (路由, 用户) 限流，超限返回 429 + Retry-After
+ * <p>
+ * 白名单请求没有 userId，不参与限流。
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitGlobalFilter implements GlobalFilter, Ordered {
+
+    private final TokenBucketRateLimiter rateLimiter;
+
+    @Override
+    @SuppressWarnings("NullableProblems")
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String userId = exchange.getAttribute(TokenGlobalFilter.USER_ID_ATTR);
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (userId == null || route == null) {
+            return chain.filter(exchange);
+        }
+
+        long waitNanos = rateLimiter.tryAcquire(route.getId(), userId);
+        if (waitNanos == 0) {
+            return chain.filter(exchange);
+        }
+
+        // Retry-After 单位为秒，向上取整
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        return GatewayResponses.writeJson(exchange, HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests");
+    }
+
+    @Override
+    public int getOrder() {
+        return GatewayFilterOrder.RATE_LIMIT;
+    }
+}
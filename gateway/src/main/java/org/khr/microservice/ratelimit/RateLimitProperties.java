@@ -0,0 +1,54 @@
+package org.khr.microservice.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按用户 + 路由限流配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 用户桶空闲多久后回收
+     */
+    private Duration idleTimeout = Duration.ofMinutes(5);
+
+    /**
+     * 每个路由最多跟踪的用户桶数
+     */
+    private long maximumBuckets = 200_000;
+
+    /**
+     * 未单独配置的路由使用的限额，为空表示不限流
+     */
+    private Limit defaultLimit;
+
+    /**
+     * key 为路由 id
+     */
+    private Map<String, Limit> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Limit {
+
+        /**
+         * 每秒补充的令牌数
+         */
+        private int replenishRate = 10;
+
+        /**
+         * 桶容量（允许的突发请求数）
+         */
+        private int burstCapacity = 20;
+    }
+}
@@ -0,0 +1,50 @@
+package org.khr.microservice.support;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Mono;
+
+import java.util.function.BiFunction;
+
+/**
+ * 把下游响应体完整缓冲下来，交给回调决定如何写回客户端
+ * <p>
+ * 只拦截 writeWith；流式响应（NettyWriteResponseFilter 对 SSE/NDJSON 走 writeAndFlushWith）原样透传，
+ * 此时回调不会被调用。
+ */
+public class BodyCaptureResponseDecorator extends ServerHttpResponseDecorator {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final BiFunction<BodyCaptureResponseDecorator, byte[], Mono<Void>> onBody;
+
+    public BodyCaptureResponseDecorator(ServerHttpResponse delegate,
+                                        BiFunction<BodyCaptureResponseDecorator, byte[], Mono<Void>> onBody) {
+        super(delegate);
+        this.onBody = onBody;
+    }
+
+    @Override
+    @SuppressWarnings("NullableProblems")
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        return DataBufferUtils.join(body)
+            .map(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+                return bytes;
+            })
+            .defaultIfEmpty(EMPTY)
+            .flatMap(bytes -> onBody.apply(this, bytes));
+    }
+
+    /**
+     * 把缓冲后的 body 写给客户端
+     */
+    public Mono<Void> writeBody(byte[] bytes) {
+        return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+    }
+}
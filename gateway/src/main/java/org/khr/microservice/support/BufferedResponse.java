@@ -0,0 +1,31 @@
+package org.khr.microservice.support;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * 已完整缓冲的下游响应，可重复写给多个客户端
+ */
+public record BufferedResponse(HttpStatusCode statusCode, HttpHeaders headers, byte[] body) {
+
+    /**
+     * 复制响应头，去掉逐跳头
+     */
+    public static BufferedResponse copyOf(HttpStatusCode statusCode, HttpHeaders source, byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(source);
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        headers.remove(HttpHeaders.CONNECTION);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        return new BufferedResponse(statusCode, headers, body);
+    }
+
+    public Mono<Void> writeTo(ServerHttpResponse response) {
+        response.setStatusCode(statusCode);
+        response.getHeaders().putAll(headers);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
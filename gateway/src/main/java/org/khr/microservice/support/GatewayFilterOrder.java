@@ -0,0 +1,53 @@
+package org.khr.microservice.support;
+
+/**
+ * 网关自定义过滤器的执行顺序，数值越小越先执行
+ */
+public interface GatewayFilterOrder {
+
+    /**
+     * 延迟统计的起点，包住其余所有过滤器
+     */
+    int LATENCY = Integer.MIN_VALUE;
+
+    /**
+     * token 校验，必须最先执行
+     */
+    int AUTH = -100;
+
+    /**
+     * 标记 token 校验结束
+     */
+    int AUTH_DONE = AUTH + 1;
+
+    /**
+     * 按用户限流，依赖 AUTH 解析出的 userId
+     */
+    int RATE_LIMIT = AUTH + 10;
+
+    /**
+     * 以下路由级过滤器需要包装响应，必须排在 NettyWriteResponseFilter（-1）之前
+     */
+    int RESPONSE_CACHE = -10;
+
+    /**
+     * 相同 GET 请求合并，排在响应缓存之后，只合并真正需要回源的请求
+     */
+    int SINGLE_FLIGHT = RESPONSE_CACHE + 1;
+
+    /**
+     * 自适应并发限制，只统计真正转发到下游的请求
+     */
+    int CONCURRENCY_LIMIT = SINGLE_FLIGHT + 1;
+
+    /**
+     * 对冲请求，必须在 RouteToRequestUrlFilter（10000）之后、ReactiveLoadBalancerClientFilter（10150）之前，
+     * 每次尝试各自选实例、各自转发
+     */
+    int HEDGE = 10100;
+
+    /**
+     * 标记开始转发到下游，紧挨在 NettyRoutingFilter（Integer.MAX_VALUE）之前
+     */
+    int UPSTREAM = Integer.MAX_VALUE - 10;
+}
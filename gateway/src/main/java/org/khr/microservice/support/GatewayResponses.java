@@ -0,0 +1,39 @@
+package org.khr.microservice.support;
+
+import cn.hutool.json.JSONUtil;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 网关直接返回的错误响应（{"code":..., "message":...}）
+ */
+public final class GatewayResponses {
+
+    private GatewayResponses() {
+    }
+
+    public static Mono<Void> writeJson(ServerWebExchange exchange, HttpStatus status, String message) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("code", status.value());
+        body.put("message", message);
+
+        try {
+            String jsonStr = JSONUtil.toJsonStr(body);
+            byte[] bytes = jsonStr.getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        } catch (Exception e) {
+            return response.setComplete();
+        }
+    }
+}
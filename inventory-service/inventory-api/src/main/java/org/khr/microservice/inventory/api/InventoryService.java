@@ -1,18 +1,54 @@
 package org.khr.microservice.inventory.api;
 
+import org.khr.microservice.common.hedge.Hedged;
+import org.khr.microservice.inventory.model.Inventory;
+import org.khr.microservice.inventory.model.InventoryModel;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.HttpExchange;
 import org.springframework.web.service.annotation.PutExchange;
 
+import java.util.List;
+
 // 移除基础路径，因为在 HttpClientConfig 中已经设置
 @HttpExchange
 public interface InventoryService {
 
+    @GetExchange("/product/{productId}")
+    Inventory getInventoryByProductId(@PathVariable Long productId);
+
+    /**
+     * 只读调用，允许对冲
+     */
+    @Hedged("inventory-check")
     @GetExchange("/check/{productId}/{quantity}")
     Boolean checkInventory(@PathVariable Long productId, @PathVariable Integer quantity);
 
     @PutExchange("/reduce/{productId}/{quantity}")
     void reduceInventory(@PathVariable Long productId, @PathVariable Integer quantity);
 
+    /**
+     * 在庫チェックと扣減を 1 つの条件付き UPDATE で行う（1 往復）
+     */
+    @PutExchange("/try-reserve/{productId}/{quantity}")
+    InventoryModel.ReserveResult tryReserve(@PathVariable Long productId, @PathVariable Integer quantity);
+
+    /**
+     * TCC 模式的一阶段预扣（需在全局事务内调用）
+     */
+    @PutExchange("/tcc/reserve/{productId}/{quantity}")
+    Boolean tccReserve(@PathVariable Long productId, @PathVariable Integer quantity);
+
+    /**
+     * 複数商品の一括扣減（商品ごとに 1 行ずつ、在庫の範囲内で先頭から受け付ける）
+     */
+    @PutExchange("/reduce/batch")
+    List<InventoryModel.BatchDeductionResult> reduceInventoryBatch(@RequestBody List<InventoryModel.BatchDeduction> deductions);
+
+    /**
+     * 秒杀模式的库存变更写回（按 dedupKey 幂等）
+     */
+    @PutExchange("/reconcile")
+    InventoryModel.ReconcileResult reconcile(@RequestBody List<InventoryModel.StockAdjustment> adjustments);
 }
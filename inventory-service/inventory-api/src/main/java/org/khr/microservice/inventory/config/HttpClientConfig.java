@@ -2,6 +2,7 @@ package org.khr.microservice.inventory.config;
 
 import org.khr.microservice.common.constant.TokenConstant;
 import org.khr.microservice.common.context.UserContext;
+import org.khr.microservice.common.hedge.HedgingExecutor;
 import org.khr.microservice.inventory.api.InventoryService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,10 +14,10 @@ import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 public class HttpClientConfig {
 
     /**
-     * 使用负载均衡的 RestClient.Builder
+     * 使用负载均衡的 RestClient.Builder，@Hedged 方法按对冲执行
      */
     @Bean
-    public InventoryService inventoryClient(RestClient.Builder restClientBuilder) {
+    public InventoryService inventoryClient(RestClient.Builder restClientBuilder, HedgingExecutor hedgingExecutor) {
         RestClient restClient = restClientBuilder
             .baseUrl("http://inventory-service/api/inventory")
             .requestInterceptor((request, body, execution) -> {
@@ -35,6 +36,6 @@ public class HttpClientConfig {
             .builderFor(adapter)
             .build();
 
-        return factory.createClient(InventoryService.class);
+        return hedgingExecutor.proxy(InventoryService.class, factory.createClient(InventoryService.class));
     }
 }
@@ -0,0 +1,56 @@
+package org.khr.microservice.inventory.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在庫 API のリクエスト / レスポンス
+ */
+public class InventoryModel {
+
+    /**
+     * 1 商品分の一括扣減：quantities は注文行ごとの数量（順序を保持）
+     */
+    public record BatchDeduction(Long productId, List<Integer> quantities) {
+
+    }
+
+    /**
+     * accepted[i] は quantities[i] を扣減できたか；remaining は扣減後の在庫
+     */
+    public record BatchDeductionResult(Long productId, List<Boolean> accepted, Integer remaining) {
+
+    }
+
+    /**
+     * 在庫の確認と扣減を 1 回で行った結果；remaining は処理後の可用在庫（quantity - reserved_quantity、商品が存在しない場合は null）
+     */
+    public record ReserveResult(Long productId, ReserveStatus status, Integer remaining) {
+
+        public boolean reserved() {
+            return status == ReserveStatus.RESERVED;
+        }
+    }
+
+    /**
+     * 秒杀模式下 Redis 中已扣减、待写回数据库的库存变更
+     * dedupKey 为 Redis Stream 的消息 ID，重复投递时只生效一次；quantity 为负表示归还
+     */
+    public record StockAdjustment(String dedupKey, Long productId, Integer quantity) {
+
+    }
+
+    /**
+     * applied 为本次写入的条数，duplicates 为已处理过而跳过的条数，
+     * shortfalls 为数据库可用库存不足、没能扣掉的数量（商品 ID → 数量，即已超卖的数量）
+     */
+    public record ReconcileResult(int applied, int duplicates, Map<Long, Integer> shortfalls) {
+
+    }
+
+    public enum ReserveStatus {
+        RESERVED,       // 扣減済み
+        INSUFFICIENT,   // 在庫不足
+        NOT_FOUND       // 商品なし
+    }
+}
@@ -0,0 +1,107 @@
+package org.khr.microservice.inventory.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.khr.microservice.common.cache.CacheInvalidationBroadcaster;
+import org.khr.microservice.inventory.config.StockCacheProperties;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 在庫チェックのニアキャッシュ（productId → 可用在庫、インスタンス内 Caffeine）
+ * <p>
+ * キャッシュ値が要求数量から safeMargin 以上離れていればメモリだけで答え、境界付近は DB を読み直す。
+ * 在庫を変える処理はコミット後に evict し、Redis pub/sub で他インスタンスのキャッシュも消す。
+ * ロード中の evict は Caffeine がロード完了を待ってから消すため、コミット前の値が残ることはない。
+ */
+@Component
+public class StockLevelCache {
+
+    private final StockCacheProperties properties;
+    private final Cache<Long, Integer> local;
+    private final CacheInvalidationBroadcaster invalidation;
+
+    private final Counter hit;
+    private final Counter miss;
+    private final Counter borderline;
+
+    public StockLevelCache(StringRedisTemplate redisTemplate, StockCacheProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.local = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getTtl())
+            .build();
+        this.invalidation = new CacheInvalidationBroadcaster(redisTemplate, properties.getInvalidationChannel(),
+            ids -> ids.forEach(id -> local.invalidate(Long.valueOf(id))));
+        this.hit = requests(meterRegistry, "hit");
+        this.miss = requests(meterRegistry, "miss");
+        this.borderline = requests(meterRegistry, "borderline");
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory.stock-cache.requests")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * 可用在庫が quantity 以上か；商品が存在しなければ null（存在しない商品はキャッシュしない）
+     *
+     * @param loader DB から可用在庫（quantity - reserved_quantity）を読む
+     */
+    public Boolean hasEnoughStock(Long productId, int quantity, Supplier<Integer> loader) {
+        if (!properties.isEnabled()) {
+            Integer available = loader.get();
+            return available == null ? null : available >= quantity;
+        }
+        boolean[] loaded = new boolean[1];
+        Integer available = local.get(productId, _ -> {
+            loaded[0] = true;
+            return loader.get();
+        });
+        if (available == null) {
+            return null;
+        }
+        if (loaded[0]) {
+            miss.increment();
+            return available >= quantity;
+        }
+        if (Math.abs(available - quantity) >= properties.getSafeMargin()) {
+            hit.increment();
+            return available >= quantity;
+        }
+        // 境界付近：キャッシュが少し古いだけで答えが変わるので DB を読む
+        borderline.increment();
+        Integer fresh = loader.get();
+        return fresh == null ? null : fresh >= quantity;
+    }
+
+    /**
+     * 在庫を変える処理の後に呼ぶ。トランザクション中ならコミット後に消す
+     */
+    public void evict(Collection<Long> productIds) {
+        if (!properties.isEnabled() || productIds.isEmpty()) {
+            return;
+        }
+        invalidation.invalidateAfterCommit(productIds.stream().map(String::valueOf).toList());
+    }
+
+    public void evict(Long productId) {
+        evict(List.of(productId));
+    }
+
+    /**
+     * 他インスタンスからの削除通知の購読先（StockCacheConfig で登録）
+     */
+    public MessageListener invalidationListener() {
+        return invalidation;
+    }
+}
@@ -0,0 +1,35 @@
+package org.khr.microservice.inventory.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.inventory.service.InventoryService;
+import org.khr.microservice.model.OrderModel;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+@Configuration
+@Slf4j
+public class OrderEventConsumerConfig {
+
+    /**
+     * 非同期注文の消費者（order.events、バッチ受信）
+     * 引当はバッチ単位で 1 トランザクション、コミット後に結果を order.results へ送信する
+     * 送信失敗・DB エラー時は例外でバッチごと拒否 → DLQ で dlq-ttl 待った後に元のキューへ戻り再処理
+     * （処理済みの注文は記録済みの結果を再送するだけ；設定は application-dev.yml）
+     */
+    @Bean
+    public Consumer<List<OrderModel.OrderEvent>> orderInput(InventoryService inventoryService, StreamBridge streamBridge) {
+        return events -> {
+            List<OrderModel.OrderResultEvent> results = inventoryService.reserveOrders(events);
+            for (OrderModel.OrderResultEvent result : results) {
+                if (!streamBridge.send("orderResult-out-0", result)) {
+                    throw new IllegalStateException("引当結果の送信に失敗しました: OrderID=" + result.orderId());
+                }
+            }
+            log.info("注文イベントを処理: Batch={}", events.size());
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package org.khr.microservice.inventory.config;
+
+import org.khr.microservice.inventory.cache.StockLevelCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class StockCacheConfig {
+
+    /**
+     * 在庫キャッシュの削除通知を購読
+     */
+    @Bean
+    public RedisMessageListenerContainer stockCacheListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                     StockLevelCache stockLevelCache,
+                                                                     StockCacheProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(stockLevelCache.invalidationListener(), new ChannelTopic(properties.getInvalidationChannel()));
+        return container;
+    }
+}
@@ -0,0 +1,35 @@
+package org.khr.microservice.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 在庫チェック用ニアキャッシュ（productId → 可用在庫）設定
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "inventory.stock-cache")
+public class StockCacheProperties {
+
+    private boolean enabled = true;
+
+    private long maximumSize = 100_000;
+
+    /**
+     * ローカルの TTL；pub/sub の取りこぼしや Seata のグローバルロールバック（undo_log で戻る）もこの時間で追いつく
+     */
+    private Duration ttl = Duration.ofSeconds(5);
+
+    /**
+     * キャッシュ値と要求数量の差がこれ未満なら境界とみなして DB を読む
+     */
+    private int safeMargin = 10;
+
+    /**
+     * 他インスタンスのローカルキャッシュを消すための pub/sub チャンネル
+     */
+    private String invalidationChannel = "inventory:stock:invalidate";
+}
@@ -4,10 +4,15 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.khr.microservice.inventory.model.Inventory;
+import org.khr.microservice.inventory.model.InventoryModel;
+import org.khr.microservice.inventory.service.InventoryExportService;
 import org.khr.microservice.inventory.service.InventoryService;
+import org.khr.microservice.inventory.tcc.InventoryTccAction;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -22,12 +27,23 @@ import java.util.List;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final InventoryExportService inventoryExportService;
+    private final InventoryTccAction inventoryTccAction;
 
     @GetMapping
     public ResponseEntity<List<Inventory>> getAllInventory() {
         return ResponseEntity.ok(inventoryService.getAllInventory());
     }
 
+    /**
+     * 全在庫の NDJSON エクスポート（行ごとにレスポンスへ書き出す）
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportInventory() {
+        StreamingResponseBody body = inventoryExportService::exportInventory;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Inventory> getInventoryById(@PathVariable Long id) {
         return inventoryService.getInventoryById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
@@ -74,6 +90,41 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.reduceInventory(productId, quantity));
     }
 
+    /**
+     * 在庫確保API：チェックと削減を 1 回で行う（注文サービスから呼ばれる）
+     */
+    @PutMapping("/try-reserve/{productId}/{quantity}")
+    public ResponseEntity<InventoryModel.ReserveResult> tryReserve(@PathVariable Long productId,
+                                                                   @PathVariable Integer quantity) {
+        return ResponseEntity.ok(inventoryService.tryReserve(productId, quantity));
+    }
+
+    /**
+     * TCC 一阶段：预扣库存，false 表示商品不存在或可用库存不足（XID 由请求头传入，二阶段由 TC 回调 confirm / cancel）
+     */
+    @PutMapping("/tcc/reserve/{productId}/{quantity}")
+    public ResponseEntity<Boolean> tccReserve(@PathVariable Long productId, @PathVariable Integer quantity) {
+        return ResponseEntity.ok(inventoryTccAction.prepare(null, productId, quantity));
+    }
+
+    /**
+     * 一括在庫削減API（注文サービスの一括注文から呼ばれる）
+     */
+    @PutMapping("/reduce/batch")
+    public ResponseEntity<List<InventoryModel.BatchDeductionResult>> reduceInventoryBatch(
+        @RequestBody List<InventoryModel.BatchDeduction> deductions) {
+        return ResponseEntity.ok(inventoryService.reduceInventoryBatch(deductions));
+    }
+
+    /**
+     * 秒杀库存写回API（注文サービスの写回タスクから呼ばれる）
+     */
+    @PutMapping("/reconcile")
+    public ResponseEntity<InventoryModel.ReconcileResult> reconcile(
+        @RequestBody List<InventoryModel.StockAdjustment> adjustments) {
+        return ResponseEntity.ok(inventoryService.reconcile(adjustments));
+    }
+
     /**
      * 在庫追加API
      */
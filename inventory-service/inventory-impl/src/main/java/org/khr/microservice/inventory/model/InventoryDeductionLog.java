@@ -0,0 +1,42 @@
+package org.khr.microservice.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.khr.microservice.common.id.SnowflakeId;
+
+import java.time.LocalDateTime;
+
+/**
+ * 秒杀库存写回记录，dedup_key 唯一，保证同一条 Redis 扣减只写回一次
+ */
+@Entity
+@Table(name = "inventory_deduction_log",
+    uniqueConstraints = @UniqueConstraint(name = "uk_dedup_key", columnNames = "dedup_key"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryDeductionLog {
+
+    @Id
+    @SnowflakeId
+    private Long id;
+
+    @Column(name = "dedup_key", nullable = false, length = 64)
+    private String dedupKey;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
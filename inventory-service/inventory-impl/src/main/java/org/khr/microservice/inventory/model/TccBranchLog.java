@@ -0,0 +1,67 @@
+package org.khr.microservice.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.khr.microservice.common.id.SnowflakeId;
+
+import java.time.LocalDateTime;
+
+/**
+ * TCC 分支记录（防悬挂 / 空回滚 / 幂等），(xid, branch_id) 唯一
+ */
+@Entity
+@Table(name = "tcc_branch_log",
+    uniqueConstraints = @UniqueConstraint(name = "uk_xid_branch", columnNames = {"xid", "branch_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TccBranchLog {
+
+    @Id
+    @SnowflakeId
+    private Long id;
+
+    @Column(nullable = false, length = 128)
+    private String xid;
+
+    @Column(name = "branch_id", nullable = false)
+    private Long branchId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private State state;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum State {
+        /** 一阶段已预扣 */
+        TRIED,
+        /** 二阶段已确认 */
+        CONFIRMED,
+        /** 二阶段已取消（含空回滚占位） */
+        CANCELLED
+    }
+}
@@ -0,0 +1,22 @@
+package org.khr.microservice.inventory.repository;
+
+import org.khr.microservice.inventory.model.InventoryDeductionLog;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 秒杀库存写回记录リポジトリ
+ */
+@Repository
+public interface InventoryDeductionLogRepository extends JpaRepository<InventoryDeductionLog, Long> {
+
+    @Query("SELECT l.dedupKey FROM InventoryDeductionLog l WHERE l.dedupKey IN :dedupKeys")
+    List<String> findExistingDedupKeys(@Param("dedupKeys") Collection<String> dedupKeys);
+
+    List<InventoryDeductionLog> findByDedupKeyIn(Collection<String> dedupKeys);
+}
@@ -1,10 +1,21 @@
 package org.khr.microservice.inventory.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.khr.microservice.inventory.model.Inventory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 在庫リポジトリ
@@ -15,4 +26,60 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     Optional<Inventory> findByProductId(Long productId);
 
     boolean existsByProductId(Long productId);
+
+    /**
+     * 按商品 ID 顺序加行锁，多个批量扣减并发时加锁顺序一致，不会死锁
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Inventory> findByProductIdInOrderByProductIdAsc(Collection<Long> productIds);
+
+    /**
+     * 单个商品加行锁（TCC 各阶段用，锁只持续到本地事务结束）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.productId = :productId")
+    Optional<Inventory> findForUpdateByProductId(@Param("productId") Long productId);
+
+    /**
+     * 可用库存足够时直接扣减，返回更新行数（0 表示库存不足或商品不存在）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Inventory i SET i.quantity = i.quantity - :quantity, i.version = i.version + 1,
+            i.updatedAt = LOCAL DATETIME
+        WHERE i.productId = :productId AND i.quantity - i.reservedQuantity >= :quantity
+        """)
+    int deductIfAvailable(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+
+    @Query("SELECT i.quantity FROM Inventory i WHERE i.productId = :productId")
+    Optional<Integer> findQuantityByProductId(@Param("productId") Long productId);
+
+    /**
+     * 可用库存（实际库存 - 预扣库存），在庫チェックのキャッシュロード用
+     */
+    @Query("SELECT i.quantity - i.reservedQuantity FROM Inventory i WHERE i.productId = :productId")
+    Optional<Integer> findAvailableQuantityByProductId(@Param("productId") Long productId);
+
+    /**
+     * 按差值调整库存（秒杀写回、补货用，delta 为正表示扣减）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Inventory i SET i.quantity = i.quantity - :delta, i.version = i.version + 1,
+            i.updatedAt = LOCAL DATETIME
+        WHERE i.productId = :productId
+        """)
+    int adjustQuantity(@Param("productId") Long productId, @Param("delta") int delta);
+
+    /**
+     * エクスポート用：サーバー側カーソル（fetch size + useCursorFetch）で少しずつ読む、読み取り専用
+     * 呼び出し側はトランザクション内で使い、Stream を閉じること
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT i FROM Inventory i ORDER BY i.id")
+    Stream<Inventory> streamForExport();
 }
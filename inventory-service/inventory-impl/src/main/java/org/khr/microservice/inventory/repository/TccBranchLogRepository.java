@@ -0,0 +1,36 @@
+package org.khr.microservice.inventory.repository;
+
+import jakarta.persistence.LockModeType;
+import org.khr.microservice.inventory.model.TccBranchLog;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * TCC 分支记录リポジトリ
+ */
+@Repository
+public interface TccBranchLogRepository extends JpaRepository<TccBranchLog, Long> {
+
+    /**
+     * (xid, branch_id) 不存在时插入，返回插入行数（0 表示已有记录）
+     * try 与 cancel 并发时由唯一键决定先后，后到者会看到对方的记录
+     */
+    @Modifying
+    @Query(value = """
+        INSERT IGNORE INTO tcc_branch_log (id, xid, branch_id, product_id, quantity, state, created_at, updated_at)
+        VALUES (:id, :xid, :branchId, :productId, :quantity, :state, NOW(6), NOW(6))
+        """, nativeQuery = true)
+    int insertIfAbsent(@Param("id") long id, @Param("xid") String xid, @Param("branchId") long branchId,
+                       @Param("productId") Long productId, @Param("quantity") Integer quantity,
+                       @Param("state") String state);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM TccBranchLog l WHERE l.xid = :xid AND l.branchId = :branchId")
+    Optional<TccBranchLog> findForUpdate(@Param("xid") String xid, @Param("branchId") long branchId);
+}
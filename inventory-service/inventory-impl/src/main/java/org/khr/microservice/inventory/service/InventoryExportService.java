@@ -0,0 +1,49 @@
+package org.khr.microservice.inventory.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.inventory.model.Inventory;
+import org.khr.microservice.inventory.repository.InventoryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 在庫の NDJSON エクスポート（1 行読んだら 1 行書く、永続化コンテキストは一定件数ごとに空にする）
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryExportService {
+
+    private static final int CLEAR_INTERVAL = 500;
+
+    private final InventoryRepository inventoryRepository;
+    private final EntityManager entityManager;
+    private final JsonMapper jsonMapper;
+
+    @Transactional(readOnly = true)
+    public long exportInventory(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Inventory> inventories = inventoryRepository.streamForExport()) {
+            Iterator<Inventory> iterator = inventories.iterator();
+            while (iterator.hasNext()) {
+                out.write(jsonMapper.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        log.info("在庫をエクスポート: Rows={}", count);
+        return count;
+    }
+}
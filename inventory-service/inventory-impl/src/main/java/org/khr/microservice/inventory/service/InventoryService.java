@@ -3,13 +3,28 @@ package org.khr.microservice.inventory.service;
 import io.seata.core.context.RootContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.inventory.cache.StockLevelCache;
 import org.khr.microservice.inventory.model.Inventory;
+import org.khr.microservice.inventory.model.InventoryDeductionLog;
+import org.khr.microservice.inventory.model.InventoryModel;
+import org.khr.microservice.inventory.repository.InventoryDeductionLogRepository;
 import org.khr.microservice.inventory.repository.InventoryRepository;
+import org.khr.microservice.model.OrderModel;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 在庫サービス
@@ -20,6 +35,8 @@ import java.util.Optional;
 public class InventoryService {
 
     private final InventoryRepository inventoryRepository;
+    private final InventoryDeductionLogRepository deductionLogRepository;
+    private final StockLevelCache stockLevelCache;
 
     @Transactional(readOnly = true)
     public List<Inventory> getAllInventory() {
@@ -52,36 +69,39 @@ public class InventoryService {
     public Inventory updateInventory(Long id, Inventory inventoryDetails) {
         Inventory inventory = inventoryRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("在庫が見つかりません: ID=" + id));
+        // 呼び出し側が読んだ version を送ってきた場合、その後に変更されていれば上書きしない
+        if (inventoryDetails.getVersion() != null && !inventoryDetails.getVersion().equals(inventory.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Inventory.class, id);
+        }
         inventory.setProductName(inventoryDetails.getProductName());
         inventory.setQuantity(inventoryDetails.getQuantity());
         log.info("在庫を更新: ID={}, Quantity={}", id, inventoryDetails.getQuantity());
+        stockLevelCache.evict(inventory.getProductId());
         return inventoryRepository.save(inventory);
     }
 
     @Transactional
     public void deleteInventory(Long id) {
-        if (!inventoryRepository.existsById(id)) {
-            throw new IllegalArgumentException("在庫が見つかりません: ID=" + id);
-        }
+        Inventory inventory = inventoryRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("在庫が見つかりません: ID=" + id));
         log.info("在庫を削除: ID={}", id);
-        inventoryRepository.deleteById(id);
+        inventoryRepository.delete(inventory);
+        stockLevelCache.evict(inventory.getProductId());
     }
 
+    /**
+     * 在庫チェック：限界から十分離れていればニアキャッシュで答え、境界付近だけ DB を読む
+     */
     @Transactional(readOnly = true)
     public boolean checkInventory(Long productId, Integer quantity) {
-        Optional<Inventory> inventoryOpt = inventoryRepository.findByProductId(productId);
+        Boolean hasStock = stockLevelCache.hasEnoughStock(productId, quantity,
+            () -> inventoryRepository.findAvailableQuantityByProductId(productId).orElse(null));
 
-        if (inventoryOpt.isEmpty()) {
+        if (hasStock == null) {
             log.warn("商品が見つかりません: ProductID={}", productId);
             return false;
         }
-
-        Inventory inventory = inventoryOpt.get();
-        boolean hasStock = inventory.hasEnoughStock(quantity);
-
-        log.info("在庫チェック: ProductID={}, RequestedQty={}, AvailableQty={}, Result={}",
-            productId, quantity, inventory.getAvailableQuantity(), hasStock);
-
+        log.debug("在庫チェック: ProductID={}, RequestedQty={}, Result={}", productId, quantity, hasStock);
         return hasStock;
     }
 
@@ -90,36 +110,215 @@ public class InventoryService {
      */
     @Transactional
     public void increaseInventory(Long productId, Integer quantity) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-            .orElseThrow(() -> new IllegalArgumentException("商品が見つかりません: ProductID=" + productId));
-
-        inventory.setQuantity(inventory.getQuantity() + quantity);
-        inventoryRepository.save(inventory);
-
-        log.info("在庫を増やしました: ProductID={}, IncreasedQty={}, CurrentQty={}",
-            productId, quantity, inventory.getQuantity());
+        // 1 本の UPDATE で加算（読み込み・dirty checking なし、分散ロック不要）
+        if (inventoryRepository.adjustQuantity(productId, -quantity) == 0) {
+            throw new IllegalArgumentException("商品が見つかりません: ProductID=" + productId);
+        }
+        stockLevelCache.evict(productId);
+        log.info("在庫を増やしました: ProductID={}, IncreasedQty={}", productId, quantity);
     }
 
     @Transactional
     public boolean reduceInventory(Long productId, Integer quantity) {
         log.info("✅ 当前全局事务 XID = {}", RootContext.getXID());
 
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-            .orElseThrow(() -> new IllegalArgumentException("商品が見つかりません: ProductID=" + productId));
-        if (inventory.getQuantity() < quantity) {
-            log.warn("在庫不足: ProductID={}, Requested={}, Available={}",
-                productId, quantity, inventory.getQuantity());
+        // 条件付き UPDATE 1 本：可用库存（quantity - reserved）足够时才扣减，并发下也不会超卖
+        if (inventoryRepository.deductIfAvailable(productId, quantity) == 0) {
+            if (!inventoryRepository.existsByProductId(productId)) {
+                throw new IllegalArgumentException("商品が見つかりません: ProductID=" + productId);
+            }
+            log.warn("在庫不足: ProductID={}, Requested={}", productId, quantity);
             return false;
         }
-        // 直接扣减库存
-        inventory.setQuantity(inventory.getQuantity() - quantity);
-        inventoryRepository.save(inventory);
-        log.info("库存扣减成功: ProductID={}, Quantity={}, 剩余库存={}",
-            productId, quantity, inventory.getQuantity());
-
-//        String a = null;
-//        a.toLowerCase();
+        stockLevelCache.evict(productId);
+        log.info("库存扣减成功: ProductID={}, Quantity={}", productId, quantity);
         return true;
     }
 
+    /**
+     * 在庫チェック + 扣減（条件付き UPDATE 1 本、行ロックは UPDATE の間だけ）
+     */
+    @Transactional
+    public InventoryModel.ReserveResult tryReserve(Long productId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("数量は1以上である必要があります");
+        }
+        int updated = inventoryRepository.deductIfAvailable(productId, quantity);
+        if (updated > 0) {
+            stockLevelCache.evict(productId);
+        }
+        Integer remaining = inventoryRepository.findAvailableQuantityByProductId(productId).orElse(null);
+
+        InventoryModel.ReserveStatus status = updated > 0 ? InventoryModel.ReserveStatus.RESERVED
+            : remaining == null ? InventoryModel.ReserveStatus.NOT_FOUND : InventoryModel.ReserveStatus.INSUFFICIENT;
+        log.info("在庫確保: ProductID={}, Quantity={}, Status={}, 剩余库存={}", productId, quantity, status, remaining);
+        return new InventoryModel.ReserveResult(productId, status, remaining);
+    }
+
+    /**
+     * 一括扣減：対象在庫を商品ID順に 1 回で取得・ロックし、商品ごとに在庫の範囲内で行を受け付ける
+     */
+    @Transactional
+    public List<InventoryModel.BatchDeductionResult> reduceInventoryBatch(List<InventoryModel.BatchDeduction> deductions) {
+        log.info("✅ 当前全局事务 XID = {}", RootContext.getXID());
+
+        Map<Long, Inventory> inventories = inventoryRepository.findByProductIdInOrderByProductIdAsc(
+                deductions.stream().map(InventoryModel.BatchDeduction::productId).toList())
+            .stream()
+            .collect(Collectors.toMap(Inventory::getProductId, Function.identity()));
+
+        List<InventoryModel.BatchDeductionResult> results = new ArrayList<>(deductions.size());
+        for (InventoryModel.BatchDeduction deduction : deductions) {
+            Inventory inventory = inventories.get(deduction.productId());
+            List<Boolean> accepted = new ArrayList<>(deduction.quantities().size());
+            if (inventory == null) {
+                log.warn("商品が見つかりません: ProductID={}", deduction.productId());
+                deduction.quantities().forEach(_ -> accepted.add(false));
+                results.add(new InventoryModel.BatchDeductionResult(deduction.productId(), accepted, null));
+                continue;
+            }
+
+            // 预扣（TCC try）占用的部分不能再卖：按可用库存受理，只从实际库存中扣
+            int available = inventory.getAvailableQuantity();
+            int deducted = 0;
+            for (Integer quantity : deduction.quantities()) {
+                boolean ok = quantity != null && quantity > 0 && available - deducted >= quantity;
+                if (ok) {
+                    deducted += quantity;
+                }
+                accepted.add(ok);
+            }
+            if (deducted > 0) {
+                inventory.setQuantity(inventory.getQuantity() - deducted);
+            }
+            log.info("一括扣減: ProductID={}, Lines={}, 剩余库存={}",
+                deduction.productId(), deduction.quantities().size(), inventory.getQuantity());
+            results.add(new InventoryModel.BatchDeductionResult(deduction.productId(), accepted,
+                inventory.getQuantity()));
+        }
+        inventoryRepository.saveAll(inventories.values());
+        stockLevelCache.evict(inventories.keySet());
+        return results;
+    }
+
+    /**
+     * 秒杀模式的库存写回：跳过已处理的 dedupKey，写入去重记录，再按商品合并成一条 UPDATE
+     * 去重记录与库存变更在同一事务内，重复投递或写回中途失败重试都不会重复扣减
+     * <p>
+     * 扣减最多扣到可用库存为 0，不会把库存扣成负数：热点期间其他路径（异步下单、TCC 等已在途的请求）
+     * 也扣了数据库库存时，扣不掉的部分作为 shortfalls 返回（即已超卖的数量）
+     */
+    @Transactional
+    public InventoryModel.ReconcileResult reconcile(List<InventoryModel.StockAdjustment> adjustments) {
+        if (adjustments.isEmpty()) {
+            return new InventoryModel.ReconcileResult(0, 0, Map.of());
+        }
+        Set<String> seen = new HashSet<>(deductionLogRepository.findExistingDedupKeys(
+            adjustments.stream().map(InventoryModel.StockAdjustment::dedupKey).toList()));
+
+        List<InventoryDeductionLog> logs = new ArrayList<>();
+        Map<Long, Integer> deltaByProduct = new TreeMap<>();
+        for (InventoryModel.StockAdjustment adjustment : adjustments) {
+            if (!seen.add(adjustment.dedupKey())) {
+                continue;
+            }
+            logs.add(new InventoryDeductionLog(null, adjustment.dedupKey(), adjustment.productId(),
+                adjustment.quantity(), null));
+            deltaByProduct.merge(adjustment.productId(), adjustment.quantity(), Integer::sum);
+        }
+        deductionLogRepository.saveAll(logs);
+        Map<Long, Integer> shortfalls = new TreeMap<>();
+        deltaByProduct.forEach((productId, delta) -> {
+            if (delta > 0) {
+                int deducted = deductUpToAvailable(productId, delta);
+                if (deducted < delta) {
+                    shortfalls.put(productId, delta - deducted);
+                }
+            } else if (delta < 0) {
+                inventoryRepository.adjustQuantity(productId, delta);
+            }
+        });
+        stockLevelCache.evict(deltaByProduct.keySet());
+
+        if (!shortfalls.isEmpty()) {
+            log.warn("秒杀库存写回时可用库存不足（已超卖）: Shortfalls={}", shortfalls);
+        }
+        log.info("秒杀库存写回: Applied={}, Duplicates={}, Products={}",
+            logs.size(), adjustments.size() - logs.size(), deltaByProduct.size());
+        return new InventoryModel.ReconcileResult(logs.size(), adjustments.size() - logs.size(), shortfalls);
+    }
+
+    /**
+     * 加行锁读取可用库存，最多扣到 0；返回实际扣减的数量（商品不存在时为 0）
+     */
+    private int deductUpToAvailable(Long productId, int quantity) {
+        int deducted = inventoryRepository.findForUpdateByProductId(productId)
+            .map(inventory -> Math.min(quantity, Math.max(inventory.getAvailableQuantity(), 0)))
+            .orElse(0);
+        if (deducted > 0) {
+            inventoryRepository.adjustQuantity(productId, deducted);
+        }
+        return deducted;
+    }
+
+    /**
+     * 非同期注文の一括引当：1 バッチ = 1 トランザクション
+     * 処理済みの注文（dedupKey = order:{orderId}）は記録された結果をそのまま返すので、バッチの再投递でも二重扣減しない
+     * 去重记录的 quantity：与秒杀写回一致，正数为扣减量；取消为 0
+     */
+    @Transactional
+    public List<OrderModel.OrderResultEvent> reserveOrders(List<OrderModel.OrderEvent> events) {
+        Map<String, OrderModel.OrderEvent> byKey = new LinkedHashMap<>();
+        events.forEach(event -> byKey.putIfAbsent(orderDedupKey(event.orderId()), event));
+
+        Map<String, Integer> processed = new HashMap<>();
+        deductionLogRepository.findByDedupKeyIn(byKey.keySet())
+            .forEach(entry -> processed.put(entry.getDedupKey(), entry.getQuantity()));
+
+        // 未処理の注文を商品ごとにまとめ、受付順に在庫の範囲内で確保する
+        Map<Long, List<OrderModel.OrderEvent>> pendingByProduct = new TreeMap<>();
+        byKey.forEach((key, event) -> {
+            if (!processed.containsKey(key)) {
+                pendingByProduct.computeIfAbsent(event.productId(), _ -> new ArrayList<>()).add(event);
+            }
+        });
+        List<InventoryModel.BatchDeduction> deductions = pendingByProduct.entrySet().stream()
+            .map(e -> new InventoryModel.BatchDeduction(e.getKey(),
+                e.getValue().stream().map(OrderModel.OrderEvent::quantity).toList()))
+            .toList();
+        List<InventoryModel.BatchDeductionResult> deducted = deductions.isEmpty() ? List.of()
+            : reduceInventoryBatch(deductions);
+
+        Map<String, String> reasons = new HashMap<>();
+        List<InventoryDeductionLog> logs = new ArrayList<>();
+        for (InventoryModel.BatchDeductionResult result : deducted) {
+            List<OrderModel.OrderEvent> productEvents = pendingByProduct.get(result.productId());
+            for (int i = 0; i < productEvents.size(); i++) {
+                OrderModel.OrderEvent event = productEvents.get(i);
+                boolean accepted = result.accepted().get(i);
+                String key = orderDedupKey(event.orderId());
+                int delta = accepted ? event.quantity() : 0;
+                processed.put(key, delta);
+                logs.add(new InventoryDeductionLog(null, key, event.productId(), delta, null));
+                if (!accepted) {
+                    reasons.put(key, result.remaining() == null ? "商品が見つかりません" : "在庫不足");
+                }
+            }
+        }
+        deductionLogRepository.saveAll(logs);
+
+        List<OrderModel.OrderResultEvent> results = new ArrayList<>(byKey.size());
+        byKey.forEach((key, event) -> {
+            boolean confirmed = processed.get(key) != 0;
+            results.add(new OrderModel.OrderResultEvent(event.orderId(), confirmed,
+                confirmed ? null : reasons.getOrDefault(key, "在庫不足")));
+        });
+        log.info("非同期注文の一括引当: Events={}, New={}, Confirmed={}",
+            events.size(), logs.size(), results.stream().filter(OrderModel.OrderResultEvent::confirmed).count());
+        return results;
+    }
+
+    private static String orderDedupKey(Long orderId) {
+        return "order:" + orderId;
+    }
 }
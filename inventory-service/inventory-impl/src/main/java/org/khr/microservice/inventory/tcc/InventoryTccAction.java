@@ -0,0 +1,25 @@
+package org.khr.microservice.inventory.tcc;
+
+import io.seata.rm.tcc.api.BusinessActionContext;
+import io.seata.rm.tcc.api.BusinessActionContextParameter;
+import io.seata.rm.tcc.api.LocalTCC;
+import io.seata.rm.tcc.api.TwoPhaseBusinessAction;
+
+/**
+ * 库存 TCC 参与者：try 预扣（reserved_quantity），confirm 实扣，cancel 释放
+ * 只在本地事务内持有行锁，不写 undo_log、不持有全局锁
+ * <p>
+ * prepare 在商品不存在或可用库存不足时返回 false（不抛异常），由调用方回滚全局事务
+ */
+@LocalTCC
+public interface InventoryTccAction {
+
+    @TwoPhaseBusinessAction(name = "inventoryTccAction", commitMethod = "confirm", rollbackMethod = "cancel")
+    boolean prepare(BusinessActionContext context,
+                    @BusinessActionContextParameter(paramName = "productId") Long productId,
+                    @BusinessActionContextParameter(paramName = "quantity") Integer quantity);
+
+    boolean confirm(BusinessActionContext context);
+
+    boolean cancel(BusinessActionContext context);
+}
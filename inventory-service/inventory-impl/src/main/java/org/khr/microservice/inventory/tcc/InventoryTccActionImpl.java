@@ -0,0 +1,128 @@
+package org.khr.microservice.inventory.tcc;
+
+import io.seata.rm.tcc.api.BusinessActionContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.inventory.cache.StockLevelCache;
+import org.khr.microservice.common.id.SnowflakeIdGenerator;
+import org.khr.microservice.inventory.model.Inventory;
+import org.khr.microservice.inventory.model.TccBranchLog;
+import org.khr.microservice.inventory.repository.InventoryRepository;
+import org.khr.microservice.inventory.repository.TccBranchLogRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+/**
+ * 库存 TCC 实现，以 tcc_branch_log 记录分支状态：
+ * <ul>
+ *     <li>幂等：confirm / cancel 只在 TRIED 状态下生效，重复调用直接返回成功</li>
+ *     <li>空回滚：cancel 时没有 try 记录，插入 CANCELLED 占位后返回成功</li>
+ *     <li>防悬挂：try 晚于 cancel 到达时，看到 CANCELLED 占位后拒绝预扣</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryTccActionImpl implements InventoryTccAction {
+
+    private final InventoryRepository inventoryRepository;
+    private final TccBranchLogRepository tccBranchLogRepository;
+    private final StockLevelCache stockLevelCache;
+
+    @Override
+    @Transactional
+    public boolean prepare(BusinessActionContext context, Long productId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("数量は1以上である必要があります");
+        }
+        String xid = context.getXid();
+        long branchId = context.getBranchId();
+
+        if (!record(xid, branchId, productId, quantity, TccBranchLog.State.TRIED)) {
+            TccBranchLog.State state = tccBranchLogRepository.findForUpdate(xid, branchId)
+                .map(TccBranchLog::getState).orElse(null);
+            if (state == TccBranchLog.State.TRIED) {
+                log.info("TCC try 重复调用: XID={}, BranchID={}", xid, branchId);
+                return true;
+            }
+            // cancel 已先执行（空回滚），这次 try 是悬挂请求
+            throw new IllegalStateException("全局事务已回滚，拒绝预扣: XID=" + xid + ", state=" + state);
+        }
+
+        Inventory inventory = inventoryRepository.findForUpdateByProductId(productId).orElse(null);
+        if (inventory == null || !inventory.hasEnoughStock(quantity)) {
+            // 业务失败返回 false（调用方回滚全局事务）；本地事务回滚，连同 TRIED 记录一起撤销，之后的 cancel 按空回滚处理
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            log.info("TCC try 在庫不足: XID={}, ProductID={}, Quantity={}, Available={}", xid, productId, quantity,
+                inventory == null ? null : inventory.getAvailableQuantity());
+            return false;
+        }
+        inventory.reserve(quantity);
+        stockLevelCache.evict(productId);
+        log.info("TCC try: XID={}, BranchID={}, ProductID={}, Quantity={}", xid, branchId, productId, quantity);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean confirm(BusinessActionContext context) {
+        String xid = context.getXid();
+        long branchId = context.getBranchId();
+
+        TccBranchLog branch = tccBranchLogRepository.findForUpdate(xid, branchId).orElse(null);
+        if (branch == null || branch.getState() != TccBranchLog.State.TRIED) {
+            log.info("TCC confirm 跳过: XID={}, BranchID={}, state={}", xid, branchId,
+                branch == null ? null : branch.getState());
+            return true;
+        }
+        inventoryRepository.findForUpdateByProductId(branch.getProductId())
+            .orElseThrow(() -> new IllegalStateException("在庫が見つかりません: ProductID=" + branch.getProductId()))
+            .confirmReserve(branch.getQuantity());
+        branch.setState(TccBranchLog.State.CONFIRMED);
+        log.info("TCC confirm: XID={}, BranchID={}, ProductID={}, Quantity={}", xid, branchId,
+            branch.getProductId(), branch.getQuantity());
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean cancel(BusinessActionContext context) {
+        String xid = context.getXid();
+        long branchId = context.getBranchId();
+        Long productId = toLong(context.getActionContext("productId"));
+        Integer quantity = toInt(context.getActionContext("quantity"));
+
+        if (record(xid, branchId, productId, quantity, TccBranchLog.State.CANCELLED)) {
+            log.info("TCC 空回滚: XID={}, BranchID={}, ProductID={}", xid, branchId, productId);
+            return true;
+        }
+
+        TccBranchLog branch = tccBranchLogRepository.findForUpdate(xid, branchId).orElseThrow();
+        if (branch.getState() != TccBranchLog.State.TRIED) {
+            log.info("TCC cancel 跳过: XID={}, BranchID={}, state={}", xid, branchId, branch.getState());
+            return true;
+        }
+        inventoryRepository.findForUpdateByProductId(branch.getProductId())
+            .orElseThrow(() -> new IllegalStateException("在庫が見つかりません: ProductID=" + branch.getProductId()))
+            .cancelReserve(branch.getQuantity());
+        branch.setState(TccBranchLog.State.CANCELLED);
+        stockLevelCache.evict(branch.getProductId());
+        log.info("TCC cancel: XID={}, BranchID={}, ProductID={}, Quantity={}", xid, branchId,
+            branch.getProductId(), branch.getQuantity());
+        return true;
+    }
+
+    private boolean record(String xid, long branchId, Long productId, Integer quantity, TccBranchLog.State state) {
+        return tccBranchLogRepository.insertIfAbsent(SnowflakeIdGenerator.get().nextId(), xid, branchId,
+            productId, quantity, state.name()) > 0;
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number n ? n.longValue() : value == null ? null : Long.valueOf(value.toString());
+    }
+
+    private static Integer toInt(Object value) {
+        return value instanceof Number n ? n.intValue() : value == null ? null : Integer.valueOf(value.toString());
+    }
+}
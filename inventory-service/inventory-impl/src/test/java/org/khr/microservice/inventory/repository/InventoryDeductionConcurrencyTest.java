@@ -0,0 +1,186 @@
+package org.khr.microservice.inventory.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.khr.microservice.common.id.SnowflakeIdGenerator;
+import org.khr.microservice.inventory.model.Inventory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mysql.MySQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 库存并发扣减：不加分布式锁，多线程同时扣减 / 补货后库存仍然正确
+ * <ul>
+ *     <li>条件 UPDATE（deductIfAvailable）：成功次数恰好等于库存，不超卖</li>
+ *     <li>@Version 实体路径：与条件 UPDATE 混跑时冲突被检测并重试，不丢更新</li>
+ * </ul>
+ * 在 Testcontainers 启动的一次性 MySQL 上运行（条件 UPDATE 的行锁行为依赖 InnoDB），没有 Docker 时跳过
+ */
+@Slf4j
+@DataJpaTest(properties = {
+    "spring.cloud.bootstrap.enabled=false",
+    "spring.cloud.consul.enabled=false",
+    "spring.cloud.consul.config.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class InventoryDeductionConcurrencyTest {
+
+    @Container
+    @ServiceConnection
+    static final MySQLContainer MYSQL = new MySQLContainer("mysql:8.4");
+
+    private static final int STOCK = 1_000;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        productId = SnowflakeIdGenerator.get().nextId();
+
+        Inventory inventory = new Inventory();
+        inventory.setProductId(productId);
+        inventory.setProductName("concurrency-test-" + productId);
+        inventory.setQuantity(STOCK);
+        inventory.setReservedQuantity(0);
+        tx.executeWithoutResult(_ -> inventoryRepository.save(inventory));
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(_ -> inventoryRepository.findByProductId(productId)
+            .ifPresent(inventoryRepository::delete));
+    }
+
+    @Test
+    void conditionalDeductionNeverOversells() throws Exception {
+        int threads = 32;
+        int attemptsPerThread = 100;
+        AtomicInteger succeeded = new AtomicInteger();
+
+        long elapsedNanos = runConcurrently(threads, () -> {
+            for (int i = 0; i < attemptsPerThread; i++) {
+                Integer updated = tx.execute(_ -> inventoryRepository.deductIfAvailable(productId, 1));
+                if (updated != null && updated > 0) {
+                    succeeded.incrementAndGet();
+                }
+            }
+        });
+
+        int attempts = threads * attemptsPerThread;
+        log.info("条件 UPDATE 扣减: Threads={}, Attempts={}, Succeeded={}, Elapsed={}ms, Throughput={} ops/s",
+            threads, attempts, succeeded.get(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+            attempts * 1_000_000_000L / Math.max(elapsedNanos, 1));
+
+        assertThat(succeeded.get()).isEqualTo(STOCK);
+        assertThat(currentQuantity()).isZero();
+    }
+
+    @Test
+    void versionedEntityUpdatesDoNotLoseConcurrentDeductions() throws Exception {
+        int threads = 8;
+        int opsPerThread = 25;
+        AtomicInteger conflicts = new AtomicInteger();
+
+        // 一半线程走实体读-改-写补货，一半线程走条件 UPDATE 扣减，补货量与扣减量相同
+        long elapsedNanos = runConcurrently(threads * 2, new Runnable() {
+            private final AtomicInteger next = new AtomicInteger();
+
+            @Override
+            public void run() {
+                boolean increment = next.getAndIncrement() % 2 == 0;
+                for (int i = 0; i < opsPerThread; i++) {
+                    if (increment) {
+                        incrementWithRetry(conflicts);
+                    } else {
+                        tx.execute(_ -> inventoryRepository.deductIfAvailable(productId, 1));
+                    }
+                }
+            }
+        });
+
+        log.info("@Version 实体路径: Threads={}, Ops={}, Conflicts={}, Elapsed={}ms",
+            threads * 2, threads * 2 * opsPerThread, conflicts.get(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+        assertThat(currentQuantity()).isEqualTo(STOCK);
+    }
+
+    private void incrementWithRetry(AtomicInteger conflicts) {
+        while (true) {
+            try {
+                tx.executeWithoutResult(_ -> {
+                    Inventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+                    inventory.setQuantity(inventory.getQuantity() + 1);
+                });
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.incrementAndGet();
+            }
+        }
+    }
+
+    private int currentQuantity() {
+        return inventoryRepository.findQuantityByProductId(productId).orElseThrow();
+    }
+
+    /**
+     * 所有线程就绪后同时开始，返回耗时（纳秒）；任一线程抛异常则测试失败
+     */
+    private static long runConcurrently(int threads, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch ready = new CountDownLatch(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            ready.await();
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,30 +1,44 @@
 package org.khr.microservice.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.khr.microservice.common.id.SnowflakeId;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * 注文エンティティ
  * Spring 7の新機能を活用したエンティティ設計
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    // 一覧はすべて (created_at, id) 降順のキーセットページング；絞り込み列を先頭にした複合インデックス
+    @Index(name = "idx_orders_created_id", columnList = "created_at, id"),
+    @Index(name = "idx_orders_user_created_id", columnList = "user_id, created_at, id"),
+    @Index(name = "idx_orders_status_created_id", columnList = "status, created_at, id"),
+    @Index(name = "idx_orders_product_created_id", columnList = "product_id, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
+    /**
+     * ユーザーの Snowflake ID；主キーと同じく JSON では文字列
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     @Column(name = "user_id", nullable = false)
     private Long userId;
 
@@ -67,6 +81,31 @@ public class Order {
         CONFIRMED,    // 確認済み
         SHIPPED,      // 出荷済み
         DELIVERED,    // 配達済み
-        CANCELLED     // キャンセル
+        CANCELLED;    // キャンセル
+
+        /**
+         * 許可する遷移：PENDING → CONFIRMED / CANCELLED、CONFIRMED → SHIPPED / CANCELLED、SHIPPED → DELIVERED
+         */
+        public boolean canTransitionTo(OrderStatus target) {
+            return switch (this) {
+                case PENDING -> target == CONFIRMED || target == CANCELLED;
+                case CONFIRMED -> target == SHIPPED || target == CANCELLED;
+                case SHIPPED -> target == DELIVERED;
+                case DELIVERED, CANCELLED -> false;
+            };
+        }
+
+        /**
+         * target へ遷移できる遷移元
+         */
+        public static Set<OrderStatus> sourcesOf(OrderStatus target) {
+            Set<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+            for (OrderStatus status : values()) {
+                if (status.canTransitionTo(target)) {
+                    sources.add(status);
+                }
+            }
+            return sources;
+        }
     }
 }
@@ -0,0 +1,117 @@
+package org.khr.microservice.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 注文 API のリクエスト / レスポンス
+ */
+public class OrderModel {
+
+    /**
+     * 一括注文の 1 行
+     */
+    public record BatchOrderLine(@NotNull(message = "商品IDは必須です") Long productId,
+                                 @NotNull(message = "数量は必須です") @Min(value = 1, message = "数量は1以上である必要があります") Integer quantity,
+                                 @NotNull(message = "価格は必須です") BigDecimal price) {
+
+    }
+
+    public record BatchOrderRequest(@NotEmpty @Size(max = 500) List<@Valid BatchOrderLine> lines) {
+
+    }
+
+    /**
+     * 行ごとの結果（line は リクエスト内の 0 始まりの位置）
+     */
+    public record BatchOrderLineResult(int line, Long productId, Integer quantity, boolean success,
+                                       @JsonFormat(shape = JsonFormat.Shape.STRING) Long orderId,
+                                       String message) {
+
+    }
+
+    public record BatchOrderResult(int succeeded, int failed, List<BatchOrderLineResult> results) {
+
+    }
+
+    /**
+     * 非同期受付イベント（order.events → inventory-service）
+     */
+    public record OrderEvent(Long orderId, Long userId, Long productId, Integer quantity) {
+
+    }
+
+    /**
+     * 在庫引当の結果（order.results → order-service）；confirmed=false の場合 reason に理由
+     */
+    public record OrderResultEvent(Long orderId, boolean confirmed, String reason) {
+
+    }
+
+    /**
+     * 注文一覧の検索条件（すべて任意）；from 以上 to 未満、cursor は前ページの X-Next-Cursor
+     */
+    public record OrderQuery(Order.OrderStatus status, Long productId, LocalDateTime from, LocalDateTime to,
+                             String cursor, Integer size) {
+
+    }
+
+    /**
+     * 注文一覧の 1 ページ；nextCursor が null なら最終ページ
+     */
+    public record OrderPage(List<Order> items, String nextCursor) {
+
+    }
+
+    /**
+     * 一括ステータス変更；遷移できない / 存在しない注文は notApplied に入る
+     */
+    public record BulkStatusRequest(@NotEmpty @Size(max = 10_000) List<@NotNull Long> ids,
+                                    @NotNull(message = "ステータスは必須です") Order.OrderStatus status) {
+
+    }
+
+    public record BulkStatusResult(Order.OrderStatus status, int applied, List<Long> notApplied) {
+
+    }
+
+    /**
+     * 商品 × ステータスの集計（revenue = Σ 価格 × 数量）
+     */
+    public record OrderStatsEntry(Long productId, Order.OrderStatus status, long orders, long units,
+                                  BigDecimal revenue) {
+
+    }
+
+    public record OrderStatsRebuildResult(long orders, int rows) {
+
+    }
+
+    /**
+     * 注文詳細：注文 + 在庫 + ユーザーを 1 回で返す
+     * 依存先がタイムアウト / 失敗した項目は null、unavailable に 項目名 -> TIMEOUT / ERROR を入れる
+     */
+    public record OrderDetails(Order order, ProductStock inventory, Customer user, Map<String, String> unavailable) {
+
+    }
+
+    public record ProductStock(Long productId, Integer quantity, Integer availableQuantity) {
+
+    }
+
+    /**
+     * ユーザーの公開項目のみ（パスワードハッシュは含めない）
+     */
+    public record Customer(@JsonFormat(shape = JsonFormat.Shape.STRING) Long id, String username, String email) {
+
+    }
+}
@@ -0,0 +1,156 @@
+package org.khr.microservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.khr.microservice.common.cache.CacheInvalidationBroadcaster;
+import org.khr.microservice.config.OrderCacheProperties;
+import org.khr.microservice.model.Order;
+import org.khr.microservice.model.OrderModel;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 注文の読み取りキャッシュ（ローカル Caffeine → Redis → DB の 2 段）
+ * <p>
+ * 対象は注文 1 件（getOrderById）とユーザーの注文一覧 1 ページ目（既定条件のみ）。
+ * 同じキーの同時ミスは Caffeine の get(key, loader) で 1 回のロードにまとめる（インスタンスあたり 1 回だけ Redis / DB へ）。
+ * 更新時はトランザクションのコミット後に Redis とローカルから消し、pub/sub で他インスタンスのローカルも消す。
+ * <p>
+ * Redis 側は削除ではなく短い TTL の墓標（TOMBSTONE）で上書きし、ロード結果は SET NX で書く。
+ * コミット前に古い行を読んだ読み手が、削除の後で古い値を SET して redisTtl の間残す競合を防ぐ
+ * （墓標が残っている間は SET NX が失敗する；その間のミスは DB から読むだけでキャッシュしない）。
+ */
+@Component
+public class OrderReadCache {
+
+    private static final String ORDER_KEY_PREFIX = "order:cache:id:";
+    private static final String USER_PAGE_KEY_PREFIX = "order:cache:user:";
+    private static final String TOMBSTONE = "-";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final JsonMapper jsonMapper;
+    private final OrderCacheProperties properties;
+    private final Cache<String, Object> local;
+    private final CacheInvalidationBroadcaster invalidation;
+
+    private final Counter localHit;
+    private final Counter localMiss;
+    private final Counter redisHit;
+    private final Counter redisMiss;
+
+    public OrderReadCache(RedisTemplate<String, String> redisTemplate, JsonMapper jsonMapper,
+                          OrderCacheProperties properties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.jsonMapper = jsonMapper;
+        this.properties = properties;
+        this.local = Caffeine.newBuilder()
+            .maximumSize(properties.getLocalMaximumSize())
+            .expireAfterWrite(properties.getLocalTtl())
+            .build();
+        this.invalidation = new CacheInvalidationBroadcaster(redisTemplate, properties.getInvalidationChannel(),
+            local::invalidateAll, this::writeTombstones);
+        this.localHit = requests(meterRegistry, "local", "hit");
+        this.localMiss = requests(meterRegistry, "local", "miss");
+        this.redisHit = requests(meterRegistry, "redis", "hit");
+        this.redisMiss = requests(meterRegistry, "redis", "miss");
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("order.cache.requests")
+            .tag("tier", tier)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * 見つからない注文はキャッシュしない
+     */
+    public Optional<Order> getOrder(Long id, Supplier<Optional<Order>> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        return Optional.ofNullable((Order) get(ORDER_KEY_PREFIX + id, Order.class, () -> loader.get().orElse(null)));
+    }
+
+    public OrderModel.OrderPage getUserFirstPage(Long userId, Supplier<OrderModel.OrderPage> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        return (OrderModel.OrderPage) get(USER_PAGE_KEY_PREFIX + userId, OrderModel.OrderPage.class, loader::get);
+    }
+
+    /**
+     * 注文の追加・更新・削除後に呼ぶ。トランザクション中ならコミット後に消す
+     */
+    public void evict(Collection<Long> orderIds, Collection<Long> userIds) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(orderIds.size() + userIds.size());
+        orderIds.forEach(id -> keys.add(ORDER_KEY_PREFIX + id));
+        userIds.forEach(userId -> keys.add(USER_PAGE_KEY_PREFIX + userId));
+        invalidation.invalidateAfterCommit(keys);
+    }
+
+    public void evict(Long orderId, Long userId) {
+        evict(orderId == null ? List.of() : List.of(orderId), userId == null ? List.of() : List.of(userId));
+    }
+
+    /**
+     * 他インスタンスからの削除通知の購読先（OrderCacheConfig で登録）
+     */
+    public MessageListener invalidationListener() {
+        return invalidation;
+    }
+
+    private Object get(String key, Class<?> type, Supplier<Object> loader) {
+        Object cached = local.getIfPresent(key);
+        if (cached != null) {
+            localHit.increment();
+            return cached;
+        }
+        // 同じキーの同時ミスはここで 1 本にまとまる
+        return local.get(key, _ -> {
+            localMiss.increment();
+            String json = redisTemplate.opsForValue().get(key);
+            if (json != null && !TOMBSTONE.equals(json)) {
+                redisHit.increment();
+                return jsonMapper.readValue(json, type);
+            }
+            redisMiss.increment();
+            Object loaded = loader.get();
+            if (loaded != null && json == null) {
+                // 墓標があれば書かない（直前に無効化された＝読んだ値が古い可能性がある）
+                redisTemplate.opsForValue().setIfAbsent(key, jsonMapper.writeValueAsString(loaded),
+                    properties.getRedisTtl());
+            }
+            return loaded;
+        });
+    }
+
+    private void writeTombstones(List<String> keys) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] tombstone = TOMBSTONE.getBytes(StandardCharsets.UTF_8);
+            Expiration ttl = Expiration.from(properties.getTombstoneTtl());
+            for (String key : keys) {
+                connection.stringCommands().set(key.getBytes(StandardCharsets.UTF_8), tombstone, ttl,
+                    RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,17 @@
+package org.khr.microservice.client;
+
+import org.khr.microservice.model.OrderModel;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.service.annotation.GetExchange;
+import org.springframework.web.service.annotation.HttpExchange;
+
+/**
+ * user-service 呼び出し（必要な項目だけ OrderModel.Customer で受ける；
+ * user-api を依存に入れると User エンティティが注文 DB にスキャンされるため）
+ */
+@HttpExchange
+public interface UserClient {
+
+    @GetExchange("/{id}")
+    OrderModel.Customer getUser(@PathVariable Long id);
+}
@@ -0,0 +1,26 @@
+package org.khr.microservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 秒杀（热点商品）模式配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "flash-sale")
+public class FlashSaleProperties {
+
+    /**
+     * 每次从 Stream 读取并写回数据库的最大条数
+     */
+    private int reconcileBatchSize = 500;
+
+    /**
+     * 其他消费者读取后超过该时间仍未 XACK 的记录（例如 Pod 以新主机名重建，旧消费者不再出现），由当前实例认领后写回
+     */
+    private Duration claimMinIdle = Duration.ofMinutes(1);
+}
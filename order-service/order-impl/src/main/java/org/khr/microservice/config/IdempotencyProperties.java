@@ -0,0 +1,33 @@
+package org.khr.microservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Idempotency-Key 設定
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * 処理中マーカーの TTL（最初のリクエストが落ちても、この時間が過ぎれば同じキーで再実行できる）
+     */
+    private Duration processingTtl = Duration.ofSeconds(60);
+
+    /**
+     * 完了した結果を保持する時間（この間の再送は保存済みの結果をそのまま返す）
+     */
+    private Duration resultTtl = Duration.ofMinutes(10);
+
+    /**
+     * 処理中の重複リクエストが結果を待つ上限；超えたら 409
+     */
+    private Duration waitTimeout = Duration.ofSeconds(5);
+
+    private Duration pollInterval = Duration.ofMillis(50);
+}
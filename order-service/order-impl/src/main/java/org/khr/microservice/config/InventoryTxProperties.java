@@ -0,0 +1,23 @@
+package org.khr.microservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 单笔下单时库存扣减的分布式事务模式
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.inventory-tx")
+public class InventoryTxProperties {
+
+    private Mode mode = Mode.AT;
+
+    public enum Mode {
+        /** 条件 UPDATE 直接扣减，Seata AT 写 undo_log 并持有全局锁直到全局事务结束 */
+        AT,
+        /** 库存服务 TCC：try 预扣 reserved_quantity，二阶段确认 / 释放，不持有全局锁 */
+        TCC
+    }
+}
@@ -0,0 +1,25 @@
+package org.khr.microservice.config;
+
+import org.khr.microservice.cache.OrderReadCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class OrderCacheConfig {
+
+    /**
+     * 注文キャッシュの削除通知を購読
+     */
+    @Bean
+    public RedisMessageListenerContainer orderCacheListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                     OrderReadCache orderReadCache,
+                                                                     OrderCacheProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(orderReadCache.invalidationListener(), new ChannelTopic(properties.getInvalidationChannel()));
+        return container;
+    }
+}
@@ -0,0 +1,40 @@
+package org.khr.microservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 注文読み取りキャッシュ（ローカル Caffeine + Redis）設定
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.cache")
+public class OrderCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * ローカルキャッシュの最大件数（注文 1 件 / ユーザーの 1 ページ目 1 件として数える）
+     */
+    private long localMaximumSize = 10_000;
+
+    /**
+     * ローカルキャッシュの TTL；pub/sub の取りこぼしがあってもこの時間で追いつく
+     */
+    private Duration localTtl = Duration.ofSeconds(30);
+
+    private Duration redisTtl = Duration.ofMinutes(5);
+
+    /**
+     * 無効化時に Redis へ書く墓標の TTL；DB から読んでから Redis に書くまでの最大時間より長くする
+     */
+    private Duration tombstoneTtl = Duration.ofSeconds(5);
+
+    /**
+     * 他インスタンスのローカルキャッシュを消すための pub/sub チャンネル
+     */
+    private String invalidationChannel = "order:cache:invalidate";
+}
@@ -0,0 +1,26 @@
+package org.khr.microservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * GET /api/orders/{id}/details の依存呼び出しごとの期限
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.details")
+public class OrderDetailsProperties {
+
+    /**
+     * 在庫取得の期限；超えたら inventory を null にして返す
+     */
+    private Duration inventoryTimeout = Duration.ofMillis(500);
+
+    /**
+     * ユーザー取得の期限；超えたら user を null にして返す
+     */
+    private Duration userTimeout = Duration.ofMillis(500);
+}
@@ -0,0 +1,21 @@
+package org.khr.microservice.config;
+
+import org.khr.microservice.model.OrderModel;
+import org.khr.microservice.service.OrderService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+@Configuration
+public class OrderStreamConfig {
+
+    /**
+     * 在庫引当結果の消費者（order.results、バッチ受信）
+     */
+    @Bean
+    public Consumer<List<OrderModel.OrderResultEvent>> orderResultInput(OrderService orderService) {
+        return orderService::applyOrderResults;
+    }
+}
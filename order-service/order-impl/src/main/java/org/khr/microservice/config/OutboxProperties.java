@@ -0,0 +1,31 @@
+package org.khr.microservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 注文イベント Outbox リレー設定
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.outbox")
+public class OutboxProperties {
+
+    /**
+     * 1 トランザクションでロック・送信する最大件数
+     */
+    private int batchSize = 200;
+
+    /**
+     * 1 回の実行で処理する最大バッチ数（溜まっている時に 1 回で追いつけるように）
+     */
+    private int maxBatchesPerRun = 20;
+
+    /**
+     * バッチ全体の publisher confirm 待ち上限；未確認の行は残して次回再送
+     */
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+}
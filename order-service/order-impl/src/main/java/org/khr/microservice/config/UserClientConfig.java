@@ -0,0 +1,36 @@
+package org.khr.microservice.config;
+
+import org.khr.microservice.client.UserClient;
+import org.khr.microservice.common.constant.TokenConstant;
+import org.khr.microservice.common.context.UserContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.support.RestClientAdapter;
+import org.springframework.web.service.invoker.HttpServiceProxyFactory;
+
+@Configuration
+public class UserClientConfig {
+
+    /**
+     * 使用负载均衡的 RestClient.Builder（clone，避免改动库存客户端共用的 Builder），与库存客户端相同的请求头
+     */
+    @Bean
+    public UserClient userClient(RestClient.Builder restClientBuilder) {
+        RestClient restClient = restClientBuilder.clone()
+            .baseUrl("http://user-service/api/users")
+            .requestInterceptor((request, body, execution) -> {
+                String userId = UserContext.getUser();
+                if (userId != null && !userId.isBlank()) {
+                    request.getHeaders().set(TokenConstant.X_USERID, userId);
+                }
+                request.getHeaders().set("X-Caller-Service", "order-service");
+                return execution.execute(request, body);
+            })
+            .build();
+
+        return HttpServiceProxyFactory.builderFor(RestClientAdapter.create(restClient))
+            .build()
+            .createClient(UserClient.class);
+    }
+}
@@ -0,0 +1,49 @@
+package org.khr.microservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.khr.microservice.service.FlashStockReconciler;
+import org.khr.microservice.service.FlashStockService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 秒杀（热点商品）模式的切换、写回与对账
+ */
+@RestController
+@RequestMapping("/api/flash-sale")
+@RequiredArgsConstructor
+public class FlashSaleController {
+
+    private final FlashStockService flashStockService;
+    private final FlashStockReconciler reconciler;
+
+    @PostMapping("/products/{productId}")
+    public ResponseEntity<Map<String, Object>> enable(@PathVariable Long productId) {
+        boolean enabled = flashStockService.enable(productId);
+        return ResponseEntity.ok(Map.of("productId", productId, "enabled", enabled));
+    }
+
+    @DeleteMapping("/products/{productId}")
+    public ResponseEntity<Void> disable(@PathVariable Long productId) {
+        flashStockService.disable(productId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * 对账：Redis 库存 + 待写回数量 与数据库可用库存的差值
+     */
+    @GetMapping("/products/{productId}/drift")
+    public ResponseEntity<FlashStockService.DriftReport> drift(@PathVariable Long productId) {
+        return ResponseEntity.ok(flashStockService.drift(productId));
+    }
+
+    /**
+     * 立即写回（不等定时任务）
+     */
+    @PostMapping("/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcile() {
+        return ResponseEntity.ok(Map.of("reconciled", reconciler.reconcile()));
+    }
+}
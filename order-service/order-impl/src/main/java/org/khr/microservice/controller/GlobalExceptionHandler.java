@@ -1,5 +1,6 @@
 package org.khr.microservice.controller;
 
+import org.khr.microservice.idempotency.IdempotencyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -21,6 +22,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
 
+    @ExceptionHandler(IdempotencyException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyException(IdempotencyException e) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", e.getStatus().value());
+        body.put("error", e.getStatus().getReasonPhrase());
+        body.put("message", e.getMessage());
+        body.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(e.getStatus()).body(body);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, Object>> handleRuntimeException(RuntimeException e) {
         Map<String, Object> body = new HashMap<>();
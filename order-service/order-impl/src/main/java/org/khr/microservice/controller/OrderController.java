@@ -2,13 +2,25 @@ package org.khr.microservice.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.khr.microservice.common.context.UserContext;
+import org.khr.microservice.idempotency.IdempotencyService;
 import org.khr.microservice.model.Order;
+import org.khr.microservice.model.OrderModel;
+import org.khr.microservice.service.OrderDetailsService;
+import org.khr.microservice.service.OrderExportService;
 import org.khr.microservice.service.OrderService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * 注文コントローラー
@@ -19,11 +31,38 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final OrderDetailsService orderDetailsService;
+    private final IdempotencyService idempotencyService;
 
+    /**
+     * 注文一覧（新しい順、既定 50 件）；次ページがあれば X-Next-Cursor ヘッダーを返す
+     */
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<List<Order>> getAllOrders(
+        @RequestParam(required = false) Order.OrderStatus status,
+        @RequestParam(required = false) Long productId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer size) {
+        return toResponse(orderService.findOrders(null,
+            new OrderModel.OrderQuery(status, productId, from, to, cursor, size)));
+    }
+
+    /**
+     * 全注文の NDJSON エクスポート（作成日時 from 以上 to 未満、任意）；行ごとにレスポンスへ書き出す
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        StreamingResponseBody body = out -> orderExportService.exportOrders(from, to, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/{id}")
@@ -31,15 +70,60 @@ public class OrderController {
         return orderService.getOrderById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * 注文詳細（注文 + 在庫 + ユーザー）；在庫とユーザーは並行取得、期限切れの項目は欠けたまま返す
+     * 本人の注文のみ（他人の注文は 404）
+     */
+    @GetMapping("/{id}/details")
+    public ResponseEntity<OrderModel.OrderDetails> getOrderDetails(@PathVariable Long id) {
+        return orderDetailsService.getOrderDetails(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Order>> getOrdersByUserId(@PathVariable Long userId) {
-        return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+    public ResponseEntity<List<Order>> getOrdersByUserId(
+        @PathVariable Long userId,
+        @RequestParam(required = false) Order.OrderStatus status,
+        @RequestParam(required = false) Long productId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer size) {
+        return toResponse(orderService.findOrders(userId,
+            new OrderModel.OrderQuery(status, productId, from, to, cursor, size)));
     }
 
+    /**
+     * 注文作成；Prefer: respond-async の場合は保存とイベント発行だけ行い 202 + 状態確認 URL を返す
+     * Idempotency-Key 付きの再送は最初のリクエストの結果を返す（注文・在庫扣減は 1 回だけ）
+     */
     @PostMapping
-    public ResponseEntity<Order> createOrder(@Valid @RequestBody Order order) {
-        Order createdOrder = orderService.createOrder(order);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+    public ResponseEntity<Order> createOrder(@Valid @RequestBody Order order,
+                                             @RequestHeader(value = "Prefer", required = false) String prefer,
+                                             @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        boolean async = prefer != null && prefer.contains("respond-async");
+        if (idempotencyKey == null) {
+            return placeOrder(order, async);
+        }
+        return idempotencyService.execute("orders:" + UserContext.getUser(), idempotencyKey, List.of(order, async),
+            Order.class, () -> placeOrder(order, async));
+    }
+
+    /**
+     * 一括注文（行ごとの結果を返す）
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<OrderModel.BatchOrderResult> createOrders(@Valid @RequestBody OrderModel.BatchOrderRequest request) {
+        OrderModel.BatchOrderResult result = orderService.createOrders(request.lines());
+        return ResponseEntity.status(result.succeeded() > 0 ? HttpStatus.CREATED : HttpStatus.OK).body(result);
+    }
+
+    /**
+     * 一括ステータス変更（許可された遷移のみ）；適用されなかった ID を返す
+     */
+    @PatchMapping("/status")
+    public ResponseEntity<OrderModel.BulkStatusResult> updateOrderStatuses(
+        @Valid @RequestBody OrderModel.BulkStatusRequest request) {
+        return ResponseEntity.ok(orderService.updateOrderStatuses(request.ids(), request.status()));
     }
 
     @PatchMapping("/{id}/status")
@@ -53,4 +137,30 @@ public class OrderController {
         orderService.deleteOrder(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static ResponseEntity<List<Order>> toResponse(OrderModel.OrderPage page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return builder.body(page.items());
+    }
+
+    private ResponseEntity<Order> placeOrder(Order order, boolean async) {
+        // 秒杀模式的商品走 Redis 扣减（已经足够快），其余按同步 / 异步处理
+        Optional<Order> flashOrder = orderService.createFlashOrder(order);
+        if (flashOrder.isPresent()) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(flashOrder.get());
+        }
+        if (async) {
+            Order acceptedOrder = orderService.createOrderAsync(order);
+            URI statusUrl = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{id}")
+                .buildAndExpand(acceptedOrder.getId())
+                .toUri();
+            return ResponseEntity.accepted().location(statusUrl).body(acceptedOrder);
+        }
+        Order createdOrder = orderService.createOrder(order);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+    }
 }
@@ -0,0 +1,33 @@
+package org.khr.microservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.khr.microservice.model.OrderModel;
+import org.khr.microservice.stats.OrderStatsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 注文集計（商品 × ステータスごとの件数・数量・金額）
+ */
+@RestController
+@RequestMapping("/api/orders/stats")
+@RequiredArgsConstructor
+public class OrderStatsController {
+
+    private final OrderStatsService orderStatsService;
+
+    @GetMapping
+    public ResponseEntity<List<OrderModel.OrderStatsEntry>> getStats(@RequestParam(required = false) Long productId) {
+        return ResponseEntity.ok(orderStatsService.getStats(productId));
+    }
+
+    /**
+     * orders 全件から作り直す
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<OrderModel.OrderStatsRebuildResult> rebuild() {
+        return ResponseEntity.ok(orderStatsService.rebuild());
+    }
+}
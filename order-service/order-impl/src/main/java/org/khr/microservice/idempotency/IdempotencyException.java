@@ -0,0 +1,18 @@
+package org.khr.microservice.idempotency;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Idempotency-Key の衝突（処理中: 409、同じキーで内容が違う: 422）
+ */
+@Getter
+public class IdempotencyException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public IdempotencyException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
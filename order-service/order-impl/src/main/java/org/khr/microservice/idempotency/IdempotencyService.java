@@ -0,0 +1,156 @@
+package org.khr.microservice.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.config.IdempotencyProperties;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key による重複実行の防止
+ * <p>
+ * 最初のリクエストが SET NX で処理中マーカーを置いて実行し、結果（ステータス / Location / ボディ）を短時間保存する。
+ * 同じキーの再送は、内容のフィンガープリントが一致すれば保存済みの結果を返し、処理中なら完了を待つ。
+ * 実行が失敗した場合はマーカーを消すので、クライアントは同じキーで再試行できる。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final String KEY_PREFIX = "idem:";
+    private static final int MAX_KEY_LENGTH = 128;
+
+    /**
+     * 自分の処理中マーカーのときだけ消す（TTL 切れ後に別のリクエストが置いたマーカーは消さない）
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call('GET', KEYS[1]) == ARGV[1] then
+            return redis.call('DEL', KEYS[1])
+        end
+        return 0
+        """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final IdempotencyProperties properties;
+    private final JsonMapper jsonMapper;
+
+    /**
+     * Redis に保存する内容；result* は完了後のみ
+     */
+    record Entry(String token, String fingerprint, boolean completed, int resultStatus, String resultLocation,
+                 String resultBody) {
+
+    }
+
+    /**
+     * @param scope       キーの名前空間（操作 + ユーザーなど）
+     * @param key         クライアントが送った Idempotency-Key
+     * @param request     フィンガープリントの元（同じキーで内容が違うリクエストを拒否する）
+     * @param action      初回だけ実行する処理
+     */
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request, Class<T> bodyType,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalStateException("Idempotency-Key は 1〜" + MAX_KEY_LENGTH + " 文字で指定してください");
+        }
+        String redisKey = KEY_PREFIX + scope + ":" + key;
+        String fingerprint = fingerprint(request);
+        long deadline = System.nanoTime() + properties.getWaitTimeout().toNanos();
+
+        while (true) {
+            Entry claim = new Entry(UUID.randomUUID().toString(), fingerprint, false, 0, null, null);
+            String claimValue = jsonMapper.writeValueAsString(claim);
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(redisKey, claimValue,
+                properties.getProcessingTtl().toMillis(), TimeUnit.MILLISECONDS))) {
+                return runAndStore(redisKey, claimValue, claim, action);
+            }
+
+            String stored = redisTemplate.opsForValue().get(redisKey);
+            if (stored == null) {
+                // 直前に元のリクエストが失敗して消えた / 期限切れ：もう一度取りに行く
+                continue;
+            }
+            Entry existing = jsonMapper.readValue(stored, Entry.class);
+            if (!existing.fingerprint().equals(fingerprint)) {
+                throw new IdempotencyException(HttpStatus.UNPROCESSABLE_CONTENT,
+                    "同じ Idempotency-Key で異なる内容のリクエストです");
+            }
+            if (existing.completed()) {
+                log.info("Idempotency-Key 再送に保存済みの結果を返却: Key={}", redisKey);
+                return replay(existing, bodyType);
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new IdempotencyException(HttpStatus.CONFLICT, "同じ Idempotency-Key のリクエストを処理中です");
+            }
+            sleep();
+        }
+    }
+
+    private <T> ResponseEntity<T> runAndStore(String redisKey, String claimValue, Entry claim,
+                                              Supplier<ResponseEntity<T>> action) {
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(redisKey), claimValue);
+            throw e;
+        }
+        try {
+            URI location = response.getHeaders().getLocation();
+            Entry result = new Entry(claim.token(), claim.fingerprint(), true, response.getStatusCode().value(),
+                location == null ? null : location.toString(),
+                response.getBody() == null ? null : jsonMapper.writeValueAsString(response.getBody()));
+            redisTemplate.opsForValue().set(redisKey, jsonMapper.writeValueAsString(result),
+                properties.getResultTtl().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // 処理自体は成功しているので結果は返す；再送は処理中マーカーの TTL 切れまで 409
+            log.warn("Idempotency-Key の結果保存に失敗: Key={}, Error={}", redisKey, e.getMessage());
+        }
+        return response;
+    }
+
+    private <T> ResponseEntity<T> replay(Entry entry, Class<T> bodyType) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(entry.resultStatus())
+            .header(REPLAYED_HEADER, "true");
+        if (entry.resultLocation() != null) {
+            builder.header(HttpHeaders.LOCATION, entry.resultLocation());
+        }
+        return builder.body(entry.resultBody() == null ? null : jsonMapper.readValue(entry.resultBody(), bodyType));
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(jsonMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(properties.getPollInterval());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyException(HttpStatus.CONFLICT, "同じ Idempotency-Key のリクエストを処理中です");
+        }
+    }
+}
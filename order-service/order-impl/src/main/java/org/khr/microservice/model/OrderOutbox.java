@@ -0,0 +1,44 @@
+package org.khr.microservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.khr.microservice.common.id.SnowflakeId;
+
+import java.time.LocalDateTime;
+
+/**
+ * 注文イベントの送信待ち（Outbox）。注文と同じローカルトランザクションで書き込み、リレーが送信後に削除する
+ */
+@Entity
+@Table(name = "order_outbox", indexes = @Index(name = "idx_outbox_created_at", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderOutbox {
+
+    @Id
+    @SnowflakeId
+    private Long id;
+
+    /**
+     * 送信先の StreamBridge バインディング名
+     */
+    @Column(nullable = false, length = 64)
+    private String binding;
+
+    /**
+     * JSON
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,49 @@
+package org.khr.microservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 商品 × ステータスごとの注文集計（件数・数量・金額）。増分で更新し、全件集計はしない
+ */
+@Entity
+@Table(name = "order_stats")
+@IdClass(OrderStats.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStats {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Order.OrderStatus status;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private Long productId;
+
+        private Order.OrderStatus status;
+    }
+}
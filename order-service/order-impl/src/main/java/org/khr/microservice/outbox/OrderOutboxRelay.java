@@ -0,0 +1,168 @@
+package org.khr.microservice.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.config.OutboxProperties;
+import org.khr.microservice.model.OrderOutbox;
+import org.khr.microservice.repository.OrderOutboxRepository;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbox リレー：古い行から一括でロックして送信し、publisher confirm を受けた行だけまとめて削除する
+ * <p>
+ * ロックは SKIP LOCKED なので複数インスタンスが同時に動いても別々の行を処理する（インスタンス間の送信順は保証しない）。
+ * 送信後・削除前に落ちた場合は再送になるため、消費側は orderId で去重する（at-least-once）。
+ */
+@Slf4j
+@Component
+public class OrderOutboxRelay {
+
+    private final OrderOutboxRepository outboxRepository;
+    private final StreamBridge streamBridge;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+
+    private final Counter published;
+    private final Counter failed;
+    private final Timer batchTimer;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OrderOutboxRelay(OrderOutboxRepository outboxRepository, StreamBridge streamBridge,
+                            TransactionTemplate transactionTemplate, OutboxProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.streamBridge = streamBridge;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.published = Counter.builder("order.outbox.published").register(meterRegistry);
+        this.failed = Counter.builder("order.outbox.failed").register(meterRegistry);
+        this.batchTimer = Timer.builder("order.outbox.batch").register(meterRegistry);
+        Gauge.builder("order.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("order.outbox.lag", lagMillis, AtomicLong::get)
+            .baseUnit("milliseconds")
+            .description("最も古い未送信イベントの経過時間")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.relay-interval-ms:200}")
+    public void scheduledRelay() {
+        try {
+            relay();
+        } catch (Exception e) {
+            log.warn("Outbox リレー失敗，稍后重试: {}", e.getMessage());
+        } finally {
+            refreshGauges();
+        }
+    }
+
+    /**
+     * 溜まっている分を送信し、送信件数を返す
+     */
+    public int relay() {
+        int total = 0;
+        for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+            BatchResult result = batchTimer.record(() -> transactionTemplate.execute(_ -> relayBatch()));
+            if (result == null) {
+                break;
+            }
+            total += result.published();
+            // 取り切れた、または一部失敗（ブローカー側の問題）なら次回に回す
+            if (result.locked() < properties.getBatchSize() || result.published() < result.locked()) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Outbox リレー: Published={}", total);
+        }
+        return total;
+    }
+
+    private BatchResult relayBatch() {
+        List<OrderOutbox> rows = outboxRepository.lockNextBatch(properties.getBatchSize());
+        if (rows.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
+
+        // 先に全部送ってから confirm をまとめて待つ（1 件ずつ待つとブローカーの往復回数分遅くなる）
+        List<CorrelationData> correlations = new ArrayList<>(rows.size());
+        for (OrderOutbox row : rows) {
+            CorrelationData correlation = new CorrelationData(String.valueOf(row.getId()));
+            Message<byte[]> message = MessageBuilder.withPayload(row.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
+                .setHeader(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION, correlation)
+                .build();
+            correlations.add(streamBridge.send(row.getBinding(), message) ? correlation : null);
+        }
+
+        long deadline = System.nanoTime() + properties.getConfirmTimeout().toNanos();
+        List<Long> confirmed = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (isConfirmed(correlations.get(i), deadline)) {
+                confirmed.add(rows.get(i).getId());
+            }
+        }
+        outboxRepository.deleteAllByIdInBatch(confirmed);
+
+        published.increment(confirmed.size());
+        failed.increment(rows.size() - confirmed.size());
+        if (confirmed.size() < rows.size()) {
+            log.warn("Outbox 一部未確認: Locked={}, Confirmed={}", rows.size(), confirmed.size());
+        }
+        return new BatchResult(rows.size(), confirmed.size());
+    }
+
+    /**
+     * ack を受け、かつ mandatory で戻されていないものだけ送信済みとみなす
+     */
+    private static boolean isConfirmed(CorrelationData correlation, long deadline) {
+        if (correlation == null) {
+            return false;
+        }
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return correlation.getFuture().get(remaining, TimeUnit.NANOSECONDS).ack()
+                && correlation.getReturned() == null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void refreshGauges() {
+        try {
+            pending.set(outboxRepository.count());
+            lagMillis.set(outboxRepository.findOldestCreatedAt()
+                .map(oldest -> Duration.between(oldest, LocalDateTime.now()).toMillis())
+                .orElse(0L));
+        } catch (Exception e) {
+            log.debug("Outbox メトリクス更新失敗: {}", e.getMessage());
+        }
+    }
+
+    private record BatchResult(int locked, int published) {
+
+    }
+}
@@ -0,0 +1,25 @@
+package org.khr.microservice.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.khr.microservice.model.OrderOutbox;
+import org.khr.microservice.repository.OrderOutboxRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Outbox への書き込み。呼び出し元のトランザクション内でのみ使える（注文の保存とアトミック）
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderOutboxService {
+
+    private final OrderOutboxRepository outboxRepository;
+    private final JsonMapper jsonMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String binding, Object event) {
+        outboxRepository.save(new OrderOutbox(null, binding, jsonMapper.writeValueAsString(event), null));
+    }
+}
@@ -0,0 +1,27 @@
+package org.khr.microservice.repository;
+
+import org.khr.microservice.model.OrderOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Outbox リポジトリ
+ */
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutbox, Long> {
+
+    /**
+     * 古い順に最大 limit 件をロック；他のリレーがロック中の行は飛ばす（複数インスタンスで同じ行を二重送信しない）
+     */
+    @Query(value = "SELECT * FROM order_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OrderOutbox> lockNextBatch(@Param("limit") int limit);
+
+    @Query("SELECT MIN(o.createdAt) FROM OrderOutbox o")
+    Optional<LocalDateTime> findOldestCreatedAt();
+}
@@ -1,18 +1,85 @@
 package org.khr.microservice.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.khr.microservice.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 注文リポジトリ
  */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
 
     List<Order> findByUserId(Long userId);
 
     List<Order> findByStatus(Order.OrderStatus status);
+
+    /**
+     * 単件ステータス変更用：行ロックを取って読む（一括変更との上書き競合を防ぐ）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findForUpdate(@Param("id") Long id);
+
+    /**
+     * 一括ステータス変更の対象行をロックして必要な列だけ返す（エンティティは読み込まない）
+     */
+    @Query(value = """
+        SELECT id, user_id AS userId, product_id AS productId, quantity, price, status FROM orders
+        WHERE id IN (:ids) AND status IN (:statuses)
+        FOR UPDATE
+        """, nativeQuery = true)
+    List<OrderStatusRow> lockByIdInAndStatusIn(@Param("ids") Collection<Long> ids,
+                                             @Param("statuses") Collection<String> statuses);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = LOCAL DATETIME WHERE o.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("to") Order.OrderStatus to);
+
+    /**
+     * エクスポート用：サーバー側カーソル（fetch size + useCursorFetch）で少しずつ読む、読み取り専用でスナップショットを持たない
+     * 呼び出し側はトランザクション内で使い、Stream を閉じること
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+        SELECT o FROM Order o
+        WHERE (:from IS NULL OR o.createdAt >= :from) AND (:to IS NULL OR o.createdAt < :to)
+        ORDER BY o.id
+        """)
+    Stream<Order> streamForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    interface OrderStatusRow {
+
+        Long getId();
+
+        Long getUserId();
+
+        Long getProductId();
+
+        Integer getQuantity();
+
+        BigDecimal getPrice();
+
+        String getStatus();
+    }
 }
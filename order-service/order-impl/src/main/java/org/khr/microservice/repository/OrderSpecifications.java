@@ -0,0 +1,50 @@
+package org.khr.microservice.repository;
+
+import jakarta.persistence.criteria.Predicate;
+import org.khr.microservice.model.Order;
+import org.khr.microservice.model.OrderModel;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 注文一覧の検索条件
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    /**
+     * 絞り込み + キーセット条件（(created_at, id) 降順で afterCreatedAt / afterId より後ろ）
+     */
+    public static Specification<Order> page(Long userId, OrderModel.OrderQuery query,
+                                            LocalDateTime afterCreatedAt, Long afterId) {
+        return (root, _, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (userId != null) {
+                predicates.add(cb.equal(root.get("userId"), userId));
+            }
+            if (query.status() != null) {
+                predicates.add(cb.equal(root.get("status"), query.status()));
+            }
+            if (query.productId() != null) {
+                predicates.add(cb.equal(root.get("productId"), query.productId()));
+            }
+            if (query.from() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), query.from()));
+            }
+            if (query.to() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), query.to()));
+            }
+            if (afterCreatedAt != null) {
+                predicates.add(cb.or(
+                    cb.lessThan(root.get("createdAt"), afterCreatedAt),
+                    cb.and(cb.equal(root.get("createdAt"), afterCreatedAt), cb.lessThan(root.get("id"), afterId))));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
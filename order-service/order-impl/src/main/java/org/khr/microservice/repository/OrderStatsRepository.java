@@ -0,0 +1,18 @@
+package org.khr.microservice.repository;
+
+import org.khr.microservice.model.OrderStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 注文集計リポジトリ
+ */
+@Repository
+public interface OrderStatsRepository extends JpaRepository<OrderStats, OrderStats.Key> {
+
+    List<OrderStats> findAllByOrderByProductIdAscStatusAsc();
+
+    List<OrderStats> findByProductIdOrderByStatusAsc(Long productId);
+}
@@ -0,0 +1,192 @@
+package org.khr.microservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.common.constant.TokenConstant;
+import org.khr.microservice.common.context.UserContext;
+import org.khr.microservice.config.FlashSaleProperties;
+import org.khr.microservice.inventory.api.InventoryService;
+import org.khr.microservice.inventory.model.InventoryModel;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 秒杀库存写回：从 Redis Stream 批量读取已扣减记录，写回 inventory 表
+ * <p>
+ * 以消费组读取，写回成功后才 XACK 并 XDEL；失败的消息留在 pending 列表，下次先重放。
+ * 其他消费者（例如已经不存在的旧 Pod）长时间未确认的记录先认领到自己名下再重放。
+ * inventory-service 按消息 ID 去重，重放不会重复扣减。
+ * <p>
+ * 数据库可用库存不够写回时（开启秒杀前已在途的异步订单、TCC 预扣等绕过 Redis 扣了数据库），
+ * inventory-service 只扣到 0 并返回不足的数量；此时 Redis 库存已没有数据库库存支撑，清零以停止继续超卖。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlashStockReconciler {
+
+    static final String GROUP = "inventory-reconciler";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final InventoryService inventoryService;
+    private final FlashSaleProperties properties;
+
+    /**
+     * 同一主机重启后沿用同一个消费者名，能接着处理自己 pending 的消息
+     */
+    private final String consumerName = "order-service@" + hostName();
+
+    @Scheduled(fixedDelayString = "${flash-sale.reconcile-interval-ms:1000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("秒杀库存写回失败，稍后重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 写回当前所有未处理的记录，返回写回条数
+     */
+    public synchronized int reconcile() {
+        createGroupIfAbsent();
+        claimIdle();
+        // 先重放自己未确认的（含刚认领的），再读新消息
+        return drain(ReadOffset.from("0")) + drain(ReadOffset.lastConsumed());
+    }
+
+    /**
+     * 把其他消费者名下空闲超过 claimMinIdle 的 pending 记录认领到当前消费者
+     */
+    private void claimIdle() {
+        StreamOperations<String, String, String> ops = redisTemplate.opsForStream();
+        Duration minIdle = properties.getClaimMinIdle();
+        Range<String> range = Range.unbounded();
+        while (true) {
+            PendingMessages pending = ops.pending(FlashStockService.STREAM_KEY, GROUP, range,
+                properties.getReconcileBatchSize());
+            if (pending == null || pending.isEmpty()) {
+                return;
+            }
+            RecordId[] idle = pending.stream()
+                .filter(message -> !consumerName.equals(message.getConsumerName()))
+                .filter(message -> message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0)
+                .map(PendingMessage::getId)
+                .toArray(RecordId[]::new);
+            if (idle.length > 0) {
+                // XCLAIM 会再次检查空闲时间，别的实例同时认领时只有一方成功
+                ops.claim(FlashStockService.STREAM_KEY, GROUP, consumerName, minIdle, idle);
+                log.warn("认领其他消费者未确认的秒杀扣减记录: Count={}", idle.length);
+            }
+            if (pending.size() < properties.getReconcileBatchSize()) {
+                return;
+            }
+            range = Range.of(Range.Bound.exclusive(pending.get(pending.size() - 1).getIdAsString()),
+                Range.Bound.unbounded());
+        }
+    }
+
+    private int drain(ReadOffset offset) {
+        StreamOperations<String, String, String> ops = redisTemplate.opsForStream();
+        int total = 0;
+        while (true) {
+            List<MapRecord<String, String, String>> records = ops.read(
+                Consumer.from(GROUP, consumerName),
+                StreamReadOptions.empty().count(properties.getReconcileBatchSize()),
+                StreamOffset.create(FlashStockService.STREAM_KEY, offset));
+            if (records == null || records.isEmpty()) {
+                return total;
+            }
+
+            List<InventoryModel.StockAdjustment> adjustments = new ArrayList<>(records.size());
+            Map<Long, Integer> pendingByProduct = new TreeMap<>();
+            for (MapRecord<String, String, String> record : records) {
+                Map<String, String> value = record.getValue();
+                Long productId = Long.valueOf(value.get("productId"));
+                int quantity = Integer.parseInt(value.get("quantity"));
+                adjustments.add(new InventoryModel.StockAdjustment(record.getId().getValue(), productId, quantity));
+                pendingByProduct.merge(productId, quantity, Integer::sum);
+            }
+
+            // 可能由接口线程调用（开启/关闭秒杀模式），调用完恢复原来的用户
+            String caller = UserContext.getUser();
+            UserContext.setUser(TokenConstant.SYSTEM_USER_ID);
+            try {
+                InventoryModel.ReconcileResult result = inventoryService.reconcile(adjustments);
+                log.info("秒杀库存写回: Records={}, Applied={}, Duplicates={}",
+                    records.size(), result.applied(), result.duplicates());
+                result.shortfalls().forEach(this::onShortfall);
+            } finally {
+                if (caller != null) {
+                    UserContext.setUser(caller);
+                } else {
+                    UserContext.clear();
+                }
+            }
+
+            RecordId[] ids = records.stream().map(MapRecord::getId).toArray(RecordId[]::new);
+            ops.acknowledge(FlashStockService.STREAM_KEY, GROUP, ids);
+            // 已写回的记录不再需要；只删确认过的，未写回的不会被裁掉
+            ops.delete(FlashStockService.STREAM_KEY, ids);
+            pendingByProduct.forEach((productId, quantity) ->
+                redisTemplate.opsForValue().decrement(FlashStockService.pendingKey(productId), quantity));
+            total += records.size();
+
+            if (records.size() < properties.getReconcileBatchSize()) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * 数据库可用库存已扣到 0：Redis 中剩下的库存无法兑现，清零（未开启时不处理）
+     */
+    private void onShortfall(Long productId, Integer quantity) {
+        boolean cleared = Boolean.TRUE.equals(
+            redisTemplate.opsForValue().setIfPresent(FlashStockService.stockKey(productId), "0"));
+        log.error("秒杀库存写回不足，已超卖: ProductID={}, Shortfall={}, RedisStockCleared={}",
+            productId, quantity, cleared);
+    }
+
+    private void createGroupIfAbsent() {
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands().xGroupCreate(
+                FlashStockService.STREAM_KEY.getBytes(StandardCharsets.UTF_8), GROUP, ReadOffset.from("0"), true));
+        } catch (DataAccessException e) {
+            // BUSYGROUP：消费组已存在
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
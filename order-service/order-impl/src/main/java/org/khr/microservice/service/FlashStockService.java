@@ -0,0 +1,192 @@
+package org.khr.microservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.inventory.api.InventoryService;
+import org.khr.microservice.inventory.model.Inventory;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 秒杀（热点商品）库存
+ * <p>
+ * 开启后该商品的库存放在 Redis：下单时用 Lua 脚本原子地检查并扣减，不加分布式锁、不调用库存服务，
+ * 扣减记录写入 Stream，由 {@link FlashStockReconciler} 批量写回数据库。
+ * 脚本对未开启的商品返回 -2，调用方回退到普通下单流程。
+ * <p>
+ * 多个 key 在一个脚本里操作，要求单机 Redis（与当前 RedisConfig 一致）。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FlashStockService {
+
+    static final String STREAM_KEY = "flash:stock:stream";
+    private static final String STOCK_KEY_PREFIX = "flash:stock:";
+    private static final String PENDING_KEY_PREFIX = "flash:pending:";
+
+    private static final long NOT_HOT = -2;
+    private static final long INSUFFICIENT = -1;
+
+    /**
+     * KEYS: stock, pending, stream；ARGV: quantity, productId
+     * 不按 MAXLEN 裁剪：未写回的记录不能丢，已写回的由 {@link FlashStockReconciler} 在 XACK 后 XDEL
+     */
+    private static final RedisScript<Long> DEDUCT_SCRIPT = new DefaultRedisScript<>("""
+        local stock = redis.call('GET', KEYS[1])
+        if not stock then
+            return -2
+        end
+        local quantity = tonumber(ARGV[1])
+        if tonumber(stock) < quantity then
+            return -1
+        end
+        local remaining = redis.call('DECRBY', KEYS[1], quantity)
+        redis.call('INCRBY', KEYS[2], quantity)
+        redis.call('XADD', KEYS[3], '*', 'productId', ARGV[2], 'quantity', ARGV[1])
+        return remaining
+        """, Long.class);
+
+    /**
+     * 归还：模式仍开启时加回 Redis 库存，并写一条负数记录让数据库同步加回
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+        local quantity = tonumber(ARGV[1])
+        if redis.call('EXISTS', KEYS[1]) == 1 then
+            redis.call('INCRBY', KEYS[1], quantity)
+        end
+        redis.call('INCRBY', KEYS[2], -quantity)
+        redis.call('XADD', KEYS[3], '*', 'productId', ARGV[2], 'quantity', -quantity)
+        return 1
+        """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedissonClient redisson;
+    private final InventoryService inventoryService;
+    private final FlashStockReconciler reconciler;
+
+    public enum DeductStatus {
+        DEDUCTED,
+        INSUFFICIENT,
+        NOT_HOT
+    }
+
+    /**
+     * @param redisStock  Redis 中的剩余库存
+     * @param pending     已在 Redis 扣减、尚未写回数据库的数量
+     * @param dbAvailable 数据库中的可用库存
+     * @param drift       dbAvailable - pending - redisStock，正常应为 0
+     */
+    public record DriftReport(Long productId, boolean hot, Long redisStock, long pending, Integer dbAvailable,
+                              Long drift) {
+
+    }
+
+    public DeductStatus tryDeduct(Long productId, int quantity) {
+        Long result = redisTemplate.execute(DEDUCT_SCRIPT,
+            List.of(stockKey(productId), pendingKey(productId), STREAM_KEY),
+            String.valueOf(quantity), String.valueOf(productId));
+        if (result == null || result == NOT_HOT) {
+            return DeductStatus.NOT_HOT;
+        }
+        return result == INSUFFICIENT ? DeductStatus.INSUFFICIENT : DeductStatus.DEDUCTED;
+    }
+
+    /**
+     * 扣减成功但订单没有保存时调用
+     */
+    public void release(Long productId, int quantity) {
+        redisTemplate.execute(RELEASE_SCRIPT,
+            List.of(stockKey(productId), pendingKey(productId), STREAM_KEY),
+            String.valueOf(quantity), String.valueOf(productId));
+    }
+
+    public boolean isHot(Long productId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(stockKey(productId)));
+    }
+
+    /**
+     * 开启秒杀模式：持有商品锁（与普通下单同一把锁）时把数据库可用库存载入 Redis
+     * <p>
+     * 商品锁只排除同步下单；已在途的异步订单、TCC 预扣之后仍会扣数据库库存。
+     * 写回时数据库可用库存不足的部分由 {@link FlashStockReconciler} 报告并清零 Redis 库存，不会把数据库库存扣成负数。
+     *
+     * @return false 表示已经是秒杀模式
+     */
+    public boolean enable(Long productId) {
+        return withProductLock(productId, () -> {
+            // 先把之前的记录写回，载入的库存才是准确的
+            reconciler.reconcile();
+            Inventory inventory = inventoryService.getInventoryByProductId(productId);
+            if (inventory == null) {
+                throw new IllegalArgumentException("商品が見つかりません: ProductID=" + productId);
+            }
+            int available = inventory.getAvailableQuantity();
+            boolean enabled = Boolean.TRUE.equals(
+                redisTemplate.opsForValue().setIfAbsent(stockKey(productId), String.valueOf(available)));
+            log.info("秒杀模式开启: ProductID={}, Stock={}, Enabled={}", productId, available, enabled);
+            return enabled;
+        });
+    }
+
+    /**
+     * 关闭秒杀模式：删除 Redis 库存后立即写回全部记录，之后普通下单看到的数据库库存是准确的
+     *
+     * @return 关闭时 Redis 中的剩余库存，未开启时为 null
+     */
+    public Long disable(Long productId) {
+        return withProductLock(productId, () -> {
+            String remaining = redisTemplate.opsForValue().getAndDelete(stockKey(productId));
+            reconciler.reconcile();
+            log.info("秒杀模式关闭: ProductID={}, RedisStock={}", productId, remaining);
+            return remaining == null ? null : Long.valueOf(remaining);
+        });
+    }
+
+    public DriftReport drift(Long productId) {
+        String stock = redisTemplate.opsForValue().get(stockKey(productId));
+        String pending = redisTemplate.opsForValue().get(pendingKey(productId));
+        Inventory inventory = inventoryService.getInventoryByProductId(productId);
+
+        Long redisStock = stock == null ? null : Long.valueOf(stock);
+        long pendingQuantity = pending == null ? 0 : Long.parseLong(pending);
+        Integer dbAvailable = inventory == null ? null : inventory.getAvailableQuantity();
+        Long drift = redisStock == null || dbAvailable == null ? null : dbAvailable - pendingQuantity - redisStock;
+        return new DriftReport(productId, redisStock != null, redisStock, pendingQuantity, dbAvailable, drift);
+    }
+
+    static String pendingKey(Long productId) {
+        return PENDING_KEY_PREFIX + productId;
+    }
+
+    static String stockKey(Long productId) {
+        return STOCK_KEY_PREFIX + productId;
+    }
+
+    private <T> T withProductLock(Long productId, Supplier<T> action) {
+        RLock lock = redisson.getLock("product_lock_" + productId);
+        boolean locked = false;
+        try {
+            locked = lock.tryLock(5, 60, TimeUnit.SECONDS);
+            if (!locked) {
+                throw new IllegalStateException("系统繁忙，请稍后再试");
+            }
+            return action.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("操作被中断");
+        } finally {
+            if (locked) {
+                lock.unlock();
+            }
+        }
+    }
+}
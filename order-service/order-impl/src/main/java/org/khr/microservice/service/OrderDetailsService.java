@@ -0,0 +1,103 @@
+package org.khr.microservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.client.UserClient;
+import org.khr.microservice.common.context.UserContext;
+import org.khr.microservice.config.OrderDetailsProperties;
+import org.khr.microservice.inventory.api.InventoryService;
+import org.khr.microservice.inventory.model.Inventory;
+import org.khr.microservice.model.Order;
+import org.khr.microservice.model.OrderModel;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Joiner;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+
+/**
+ * 注文詳細：注文を読んだあと、在庫とユーザーを仮想スレッドで同時に取得する（StructuredTaskScope）
+ * 呼び出しごとに期限を持ち、期限切れ / 失敗した項目だけ欠けた部分結果を返す
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderDetailsService {
+
+    private final OrderService orderService;
+    private final InventoryService inventoryService;
+    private final UserClient userClient;
+    private final OrderDetailsProperties properties;
+
+    public Optional<OrderModel.OrderDetails> getOrderDetails(Long orderId) {
+        // UserContext は ThreadLocal なので、フォーク先で設定し直す
+        String caller = UserContext.getUser();
+        // 他人の注文は存在しないものとして扱う（ユーザー名・メールアドレスを返さない）
+        Optional<Order> found = orderService.getOrderById(orderId)
+            .filter(order -> caller != null && caller.equals(String.valueOf(order.getUserId())));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Order order = found.get();
+
+        // awaitAll：1 つが失敗しても他方はキャンセルしない（部分結果を返すため）
+        try (StructuredTaskScope<Object, Void> scope = StructuredTaskScope.open(Joiner.awaitAll())) {
+            Subtask<OrderModel.ProductStock> inventory = scope.fork(() -> withDeadline(
+                properties.getInventoryTimeout(), caller,
+                () -> toStock(inventoryService.getInventoryByProductId(order.getProductId()))));
+            Subtask<OrderModel.Customer> user = scope.fork(() -> withDeadline(
+                properties.getUserTimeout(), caller, () -> userClient.getUser(order.getUserId())));
+            scope.join();
+
+            Map<String, String> unavailable = new LinkedHashMap<>();
+            return Optional.of(new OrderModel.OrderDetails(order,
+                resultOf("inventory", inventory, unavailable),
+                resultOf("user", user, unavailable),
+                unavailable));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("注文詳細の取得が中断されました: ID=" + orderId, e);
+        }
+    }
+
+    /**
+     * 期限付きで 1 回呼び出す；期限を過ぎると呼び出し中のスレッドを中断して TimeoutException
+     */
+    private static <T> T withDeadline(Duration timeout, String caller, Callable<T> call) throws InterruptedException {
+        try (StructuredTaskScope<T, T> scope = StructuredTaskScope.open(Joiner.<T>anySuccessfulResultOrThrow(),
+            cfg -> cfg.withTimeout(timeout))) {
+            scope.fork(() -> {
+                UserContext.setUser(caller);
+                try {
+                    return call.call();
+                } finally {
+                    UserContext.clear();
+                }
+            });
+            return scope.join();
+        }
+    }
+
+    private static <T> T resultOf(String name, Subtask<T> subtask, Map<String, String> unavailable) {
+        if (subtask.state() == Subtask.State.SUCCESS) {
+            return subtask.get();
+        }
+        Throwable e = subtask.state() == Subtask.State.FAILED ? subtask.exception() : null;
+        boolean timedOut = e instanceof StructuredTaskScope.TimeoutException;
+        Throwable cause = e instanceof StructuredTaskScope.FailedException && e.getCause() != null ? e.getCause() : e;
+        log.warn("注文詳細の依存取得に失敗: {} -> {}", name, timedOut ? "TIMEOUT" : String.valueOf(cause));
+        unavailable.put(name, timedOut ? "TIMEOUT" : "ERROR");
+        return null;
+    }
+
+    private static OrderModel.ProductStock toStock(Inventory inventory) {
+        return inventory == null ? null
+            : new OrderModel.ProductStock(inventory.getProductId(), inventory.getQuantity(),
+            inventory.getAvailableQuantity());
+    }
+}
@@ -0,0 +1,53 @@
+package org.khr.microservice.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.model.Order;
+import org.khr.microservice.repository.OrderRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 注文の NDJSON エクスポート
+ * <p>
+ * 1 行読んだら 1 行書く。クライアントが遅いと write がブロックし、DB カーソルの読み進みも止まる（バックプレッシャー）。
+ * 永続化コンテキストは一定件数ごとに空にするので、件数に関係なくメモリ使用量は一定。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final int CLEAR_INTERVAL = 500;
+
+    private final OrderRepository orderRepository;
+    private final EntityManager entityManager;
+    private final JsonMapper jsonMapper;
+
+    @Transactional(readOnly = true)
+    public long exportOrders(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Order> orders = orderRepository.streamForExport(from, to)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                out.write(jsonMapper.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        log.info("注文をエクスポート: From={}, To={}, Rows={}", from, to, count);
+        return count;
+    }
+}
@@ -3,18 +3,35 @@ package org.khr.microservice.service;
 import io.seata.spring.annotation.GlobalTransactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.cache.OrderReadCache;
 import org.khr.microservice.common.context.UserContext;
+import org.khr.microservice.config.InventoryTxProperties;
 import org.khr.microservice.inventory.api.InventoryService;
+import org.khr.microservice.inventory.model.InventoryModel;
 import org.khr.microservice.model.Order;
+import org.khr.microservice.model.OrderModel;
+import org.khr.microservice.outbox.OrderOutboxService;
 import org.khr.microservice.repository.OrderRepository;
+import org.khr.microservice.repository.OrderSpecifications;
+import org.khr.microservice.stats.OrderStatsRecorder;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
-import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -25,27 +42,91 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class OrderService {
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int BULK_STATUS_CHUNK_SIZE = 500;
+    static final int MAX_PAGE_SIZE = 500;
+    private static final Sort PAGE_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
     private final OrderRepository orderRepository;
     private final InventoryService inventoryService;
-    private final StreamBridge streamBridge;
+    private final OrderOutboxService orderOutboxService;
     private final RedissonClient redisson;
+    private final FlashStockService flashStockService;
+    private final OrderReadCache orderReadCache;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderStatsRecorder orderStatsRecorder;
+    private final InventoryTxProperties inventoryTxProperties;
+
+    /**
+     * 注文一覧（(created_at, id) 降順のキーセットページング、COUNT は発行しない）
+     * 1 件多く取得して次ページの有無を判定する
+     * 「自分の注文」の 1 ページ目（絞り込みなし・既定件数）は読み取りキャッシュを通す
+     */
+    public OrderModel.OrderPage findOrders(Long userId, OrderModel.OrderQuery query) {
+        log.info("注文一覧を取得: UserID={}, Query={}", userId, query);
+        if (userId != null && isDefaultFirstPage(query)) {
+            return orderReadCache.getUserFirstPage(userId, () -> queryOrders(userId, query));
+        }
+        return queryOrders(userId, query);
+    }
+
+    private static boolean isDefaultFirstPage(OrderModel.OrderQuery query) {
+        return query.status() == null && query.productId() == null && query.from() == null && query.to() == null
+            && (query.cursor() == null || query.cursor().isBlank())
+            && (query.size() == null || query.size() == DEFAULT_PAGE_SIZE);
+    }
+
+    private OrderModel.OrderPage queryOrders(Long userId, OrderModel.OrderQuery query) {
+        int size = query.size() == null ? DEFAULT_PAGE_SIZE : Math.clamp(query.size(), 1, MAX_PAGE_SIZE);
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (query.cursor() != null && !query.cursor().isBlank()) {
+            String[] parts = decodeCursor(query.cursor());
+            afterCreatedAt = LocalDateTime.parse(parts[0]);
+            afterId = Long.valueOf(parts[1]);
+        }
 
-    @Transactional(readOnly = true)
-    public List<Order> getAllOrders() {
-        log.info("全注文を取得");
-        return orderRepository.findAll();
+        List<Order> rows = orderRepository.findBy(OrderSpecifications.page(userId, query, afterCreatedAt, afterId),
+            q -> q.sortBy(PAGE_SORT).limit(size + 1).all());
+        if (rows.size() <= size) {
+            return new OrderModel.OrderPage(rows, null);
+        }
+        List<Order> items = rows.subList(0, size);
+        Order last = items.getLast();
+        return new OrderModel.OrderPage(items, encodeCursor(last.getCreatedAt() + "|" + last.getId()));
     }
 
-    @Transactional(readOnly = true)
     public Optional<Order> getOrderById(Long id) {
         log.info("注文を取得: ID={}", id);
-        return orderRepository.findById(id);
+        return orderReadCache.getOrder(id, () -> orderRepository.findById(id));
     }
 
-    @Transactional(readOnly = true)
-    public List<Order> getOrdersByUserId(Long userId) {
-        log.info("ユーザーの注文を取得: UserID={}", userId);
-        return orderRepository.findByUserId(userId);
+
+    /**
+     * 秒杀模式下单：Redis 原子扣减，不加锁、不调用库存服务、不开全局事务
+     *
+     * @return 商品未开启秒杀模式时为空，调用方走 {@link #createOrder}
+     */
+    public Optional<Order> createFlashOrder(Order order) {
+        FlashStockService.DeductStatus status = flashStockService.tryDeduct(order.getProductId(), order.getQuantity());
+        if (status == FlashStockService.DeductStatus.NOT_HOT) {
+            return Optional.empty();
+        }
+        if (status == FlashStockService.DeductStatus.INSUFFICIENT) {
+            throw new IllegalStateException("在庫が不足しています");
+        }
+        try {
+            order.setUserId(Long.valueOf(UserContext.getUser()));
+            order.setStatus(Order.OrderStatus.PENDING);
+            Order savedOrder = orderRepository.save(order);
+            orderReadCache.evict(savedOrder.getId(), savedOrder.getUserId());
+            orderStatsRecorder.created(savedOrder);
+            log.info("秒杀订单保存成功: OrderID={}", savedOrder.getId());
+            return Optional.of(savedOrder);
+        } catch (RuntimeException e) {
+            flashStockService.release(order.getProductId(), order.getQuantity());
+            throw e;
+        }
     }
 
     @GlobalTransactional
@@ -59,14 +140,12 @@ public class OrderService {
             if (!lock.tryLock(1, 30, TimeUnit.SECONDS)) {
                 throw new IllegalStateException("系统繁忙，请稍后再试");
             }
-            boolean reserved = inventoryService.checkInventory(order.getProductId(), order.getQuantity());
-            if (!reserved) {
-                throw new IllegalStateException("在庫が不足しています（预扣失败）");
-            }
-            inventoryService.reduceInventory(order.getProductId(), order.getQuantity());
+            reserveInventory(order.getProductId(), order.getQuantity());
             // 保存订单
             order.setStatus(Order.OrderStatus.PENDING);
             Order savedOrder = orderRepository.save(order);
+            orderReadCache.evict(savedOrder.getId(), savedOrder.getUserId());
+            orderStatsRecorder.created(savedOrder);
             log.info("订单保存成功: OrderID={}", savedOrder.getId());
             return savedOrder;
         } catch (InterruptedException e) {
@@ -83,23 +162,254 @@ public class OrderService {
         }
     }
 
+    /**
+     * 单笔下单的库存扣减：AT 为条件 UPDATE 直接扣减；TCC 只做一阶段预扣，二阶段由 TC 回调库存服务
+     */
+    private void reserveInventory(Long productId, Integer quantity) {
+        if (inventoryTxProperties.getMode() == InventoryTxProperties.Mode.TCC) {
+            if (!Boolean.TRUE.equals(inventoryService.tccReserve(productId, quantity))) {
+                throw new IllegalStateException("在庫が不足しています（TCC 预扣失败）");
+            }
+            return;
+        }
+        // 检查 + 扣减一次完成（1 次往返）
+        InventoryModel.ReserveResult reserved = inventoryService.tryReserve(productId, quantity);
+        if (!reserved.reserved()) {
+            throw new IllegalStateException("在庫が不足しています（预扣失败）: " + reserved.status());
+        }
+    }
+
+    /**
+     * 一括注文：商品ごとにまとめ、商品ID順にロックを取り、在庫扣減は 1 回の呼び出し、
+     * 注文は 1 回の JDBC バッチで保存する（全体で 1 つのグローバルトランザクション）
+     */
+    @GlobalTransactional
+    public OrderModel.BatchOrderResult createOrders(List<OrderModel.BatchOrderLine> lines) {
+        Long userId = Long.valueOf(UserContext.getUser());
+
+        // 秒杀模式的商品直接在 Redis 扣减，其余按 商品ID -> 行番号 分组（TreeMap で商品ID順、行は元の順序）
+        boolean[] accepted = new boolean[lines.size()];
+        List<Integer> flashLines = new ArrayList<>();
+        Map<Long, List<Integer>> linesByProduct = new TreeMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            OrderModel.BatchOrderLine line = lines.get(i);
+            FlashStockService.DeductStatus status = flashStockService.tryDeduct(line.productId(), line.quantity());
+            if (status == FlashStockService.DeductStatus.NOT_HOT) {
+                linesByProduct.computeIfAbsent(line.productId(), _ -> new ArrayList<>()).add(i);
+            } else if (status == FlashStockService.DeductStatus.DEDUCTED) {
+                accepted[i] = true;
+                flashLines.add(i);
+            }
+        }
+
+        // 锁的顺序固定，批量请求之间、与单个下单之间都不会互相死锁
+        RLock lock = linesByProduct.isEmpty() ? null : redisson.getMultiLock(linesByProduct.keySet().stream()
+            .map(productId -> redisson.getLock("product_lock_" + productId))
+            .toArray(RLock[]::new));
+        boolean locked = false;
+        try {
+            if (lock != null) {
+                locked = lock.tryLock(3, 30, TimeUnit.SECONDS);
+                if (!locked) {
+                    throw new IllegalStateException("系统繁忙，请稍后再试");
+                }
+
+                List<InventoryModel.BatchDeduction> deductions = linesByProduct.entrySet().stream()
+                    .map(e -> new InventoryModel.BatchDeduction(e.getKey(),
+                        e.getValue().stream().map(i -> lines.get(i).quantity()).toList()))
+                    .toList();
+                List<InventoryModel.BatchDeductionResult> deducted = inventoryService.reduceInventoryBatch(deductions);
+
+                for (InventoryModel.BatchDeductionResult result : deducted) {
+                    List<Integer> lineIndexes = linesByProduct.getOrDefault(result.productId(), List.of());
+                    for (int j = 0; j < lineIndexes.size() && j < result.accepted().size(); j++) {
+                        accepted[lineIndexes.get(j)] = Boolean.TRUE.equals(result.accepted().get(j));
+                    }
+                }
+            }
+
+            List<Integer> acceptedLines = new ArrayList<>();
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < lines.size(); i++) {
+                if (!accepted[i]) {
+                    continue;
+                }
+                OrderModel.BatchOrderLine line = lines.get(i);
+                Order order = new Order();
+                order.setUserId(userId);
+                order.setProductId(line.productId());
+                order.setQuantity(line.quantity());
+                order.setPrice(line.price());
+                order.setStatus(Order.OrderStatus.PENDING);
+                orders.add(order);
+                acceptedLines.add(i);
+            }
+            // Snowflake 主键在插入前生成，saveAll 按 hibernate.jdbc.batch_size 批量 INSERT
+            orderRepository.saveAll(orders);
+            orderReadCache.evict(List.of(), List.of(userId));
+            orders.forEach(orderStatsRecorder::created);
+
+            Long[] orderIds = new Long[lines.size()];
+            for (int k = 0; k < acceptedLines.size(); k++) {
+                orderIds[acceptedLines.get(k)] = orders.get(k).getId();
+            }
+            List<OrderModel.BatchOrderLineResult> results = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                OrderModel.BatchOrderLine line = lines.get(i);
+                results.add(accepted[i]
+                    ? new OrderModel.BatchOrderLineResult(i, line.productId(), line.quantity(), true, orderIds[i], null)
+                    : new OrderModel.BatchOrderLineResult(i, line.productId(), line.quantity(), false, null,
+                    "在庫が不足しています"));
+            }
+            log.info("一括注文: Lines={}, Products={}, Created={}", lines.size(), linesByProduct.size(), orders.size());
+            return new OrderModel.BatchOrderResult(orders.size(), lines.size() - orders.size(), results);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseFlashLines(lines, flashLines);
+            throw new RuntimeException("一括注文失败:" + e.getMessage());
+        } catch (RuntimeException e) {
+            // 全局事务回滚不会恢复 Redis，秒杀扣减需要单独归还
+            releaseFlashLines(lines, flashLines);
+            throw e;
+        } finally {
+            if (locked) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void releaseFlashLines(List<OrderModel.BatchOrderLine> lines, List<Integer> flashLines) {
+        for (Integer i : flashLines) {
+            flashStockService.release(lines.get(i).productId(), lines.get(i).quantity());
+        }
+    }
+
+    /**
+     * 非同期受付：PENDING で保存してイベントを Outbox に積むだけ（在庫引当は inventory-service が非同期に行う）
+     */
+    @Transactional
+    public Order createOrderAsync(Order order) {
+        order.setUserId(Long.valueOf(UserContext.getUser()));
+        order.setStatus(Order.OrderStatus.PENDING);
+        Order savedOrder = orderRepository.save(order);
+
+        OrderModel.OrderEvent event = new OrderModel.OrderEvent(savedOrder.getId(), savedOrder.getUserId(),
+            savedOrder.getProductId(), savedOrder.getQuantity());
+        // 同じトランザクションで Outbox に書くだけ；送信は OrderOutboxRelay が行う
+        orderOutboxService.append("orderOutput-out-0", event);
+        orderReadCache.evict(savedOrder.getId(), savedOrder.getUserId());
+        orderStatsRecorder.created(savedOrder);
+        log.info("非同期注文を受付: OrderID={}", savedOrder.getId());
+        return savedOrder;
+    }
+
+    /**
+     * inventory-service からの引当結果を反映（PENDING のものだけ、確定 / キャンセルそれぞれ 1 本の UPDATE）
+     */
+    @Transactional
+    public void applyOrderResults(List<OrderModel.OrderResultEvent> results) {
+        List<Long> confirmed = results.stream().filter(OrderModel.OrderResultEvent::confirmed)
+            .map(OrderModel.OrderResultEvent::orderId).toList();
+        List<Long> cancelled = results.stream().filter(r -> !r.confirmed())
+            .map(OrderModel.OrderResultEvent::orderId).toList();
+        List<String> pending = List.of(Order.OrderStatus.PENDING.name());
+        int confirmedCount = confirmed.isEmpty() ? 0
+            : transition(confirmed, pending, Order.OrderStatus.CONFIRMED).size();
+        int cancelledCount = cancelled.isEmpty() ? 0
+            : transition(cancelled, pending, Order.OrderStatus.CANCELLED).size();
+        log.info("引当結果を反映: Results={}, Confirmed={}, Cancelled={}", results.size(), confirmedCount, cancelledCount);
+    }
+
     @Transactional
     public Order updateOrderStatus(Long id, Order.OrderStatus status) {
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findForUpdate(id)
             .orElseThrow(() -> new IllegalArgumentException("注文が見つかりません: ID=" + id));
 
+        Order.OrderStatus previous = order.getStatus();
+        if (!previous.canTransitionTo(status)) {
+            throw new IllegalStateException("このステータスへは変更できません: " + previous + " -> " + status);
+        }
         order.setStatus(status);
         log.info("注文ステータスを更新: ID={}, Status={}", id, status);
 
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        orderReadCache.evict(savedOrder.getId(), savedOrder.getUserId());
+        orderStatsRecorder.transitioned(savedOrder.getProductId(), savedOrder.getQuantity(), savedOrder.getPrice(),
+            previous, status);
+        return savedOrder;
+    }
+
+    /**
+     * 一括ステータス変更：エンティティを読み込まず、チャンクごとに 1 トランザクション
+     * （遷移元ステータスの行だけロックして (id, userId) を取得 → 1 本の UPDATE）
+     * 存在しない、または遷移できないステータスの注文は notApplied として返す
+     */
+    public OrderModel.BulkStatusResult updateOrderStatuses(List<Long> ids, Order.OrderStatus status) {
+        Set<Order.OrderStatus> sources = Order.OrderStatus.sourcesOf(status);
+        if (sources.isEmpty()) {
+            throw new IllegalStateException("このステータスへは変更できません: " + status);
+        }
+        List<String> sourceNames = sources.stream().map(Enum::name).toList();
+        List<Long> distinctIds = ids.stream().distinct().toList();
+
+        Set<Long> applied = new HashSet<>();
+        for (int from = 0; from < distinctIds.size(); from += BULK_STATUS_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + BULK_STATUS_CHUNK_SIZE, distinctIds.size()));
+            List<OrderRepository.OrderStatusRow> updated = transactionTemplate.execute(
+                _ -> transition(chunk, sourceNames, status));
+            if (updated != null) {
+                updated.forEach(row -> applied.add(row.getId()));
+            }
+        }
+
+        List<Long> notApplied = distinctIds.stream().filter(id -> !applied.contains(id)).toList();
+        log.info("注文ステータスを一括更新: Status={}, Requested={}, Applied={}, NotApplied={}",
+            status, distinctIds.size(), applied.size(), notApplied.size());
+        return new OrderModel.BulkStatusResult(status, applied.size(), notApplied);
+    }
+
+    /**
+     * 遷移元ステータスの行だけロックして 1 本の UPDATE で変更し、キャッシュと集計に反映する（呼び出し側のトランザクション内）
+     */
+    private List<OrderRepository.OrderStatusRow> transition(Collection<Long> ids, Collection<String> sourceNames,
+                                                            Order.OrderStatus to) {
+        List<OrderRepository.OrderStatusRow> rows = orderRepository.lockByIdInAndStatusIn(ids, sourceNames);
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        List<Long> orderIds = rows.stream().map(OrderRepository.OrderStatusRow::getId).toList();
+        orderRepository.updateStatus(orderIds, to);
+        orderReadCache.evict(orderIds, rows.stream().map(OrderRepository.OrderStatusRow::getUserId).distinct().toList());
+        rows.forEach(row -> orderStatsRecorder.transitioned(row.getProductId(), row.getQuantity(), row.getPrice(),
+            Order.OrderStatus.valueOf(row.getStatus()), to));
+        return rows;
     }
 
     @Transactional
     public void deleteOrder(Long id) {
-        if (!orderRepository.existsById(id)) {
-            throw new IllegalArgumentException("注文が見つかりません: ID=" + id);
-        }
+        Order order = orderRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("注文が見つかりません: ID=" + id));
         log.info("注文を削除: ID={}", id);
-        orderRepository.deleteById(id);
+        orderRepository.delete(order);
+        orderReadCache.evict(order.getId(), order.getUserId());
+        orderStatsRecorder.deleted(order);
+    }
+
+    private static String encodeCursor(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(cursor);
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("不正なカーソルです: " + cursor);
+        }
     }
 }
@@ -0,0 +1,161 @@
+package org.khr.microservice.stats;
+
+import io.seata.core.context.RootContext;
+import io.seata.tm.api.transaction.TransactionHookAdapter;
+import io.seata.tm.api.transaction.TransactionHookManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.model.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 注文集計の増分をメモリ上（商品 × ステータスごとの LongAdder）に貯め、定期的に order_stats へ加算する
+ * <p>
+ * 増分はコミット後に加えるので、ロールバックした注文は数えない：Seata のグローバルトランザクション中は
+ * グローバルコミット後（この TM が開始したトランザクションのみ）、Spring のトランザクション中はそのコミット後。
+ * どちらもない場合（createFlashOrder など、各 SQL が自動コミット）は即時に加える。
+ * 各インスタンスが自分の増分だけを加算するので、複数インスタンスでも合計は正しい。
+ * プロセスが落ちると未反映の増分（最大 1 回のフラッシュ間隔分）は失われる；{@link OrderStatsService#rebuild()} で作り直せる。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatsRecorder {
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO order_stats (product_id, status, order_count, units, revenue) VALUES (?, ?, ?, ?, ?) AS d
+        ON DUPLICATE KEY UPDATE order_count = order_stats.order_count + d.order_count,
+                                units = order_stats.units + d.units,
+                                revenue = order_stats.revenue + d.revenue
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<StatsKey, Delta> deltas = new ConcurrentHashMap<>();
+
+    record StatsKey(Long productId, Order.OrderStatus status) {
+
+    }
+
+    /**
+     * 金額は分（1/100）単位で加算する（価格は小数 2 桁）
+     */
+    static final class Delta {
+
+        final LongAdder orders = new LongAdder();
+        final LongAdder units = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+
+        void add(long orderCount, long unitCount, long cents) {
+            orders.add(orderCount);
+            units.add(unitCount);
+            revenueCents.add(cents);
+        }
+    }
+
+    public void created(Order order) {
+        record(order.getProductId(), order.getStatus(), 1, order.getQuantity(), order.getPrice());
+    }
+
+    public void deleted(Order order) {
+        record(order.getProductId(), order.getStatus(), -1, -order.getQuantity(), order.getPrice().negate());
+    }
+
+    public void transitioned(Long productId, Integer quantity, BigDecimal price,
+                             Order.OrderStatus from, Order.OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        record(productId, from, -1, -quantity, price.negate());
+        record(productId, to, 1, quantity, price);
+    }
+
+    private void record(Long productId, Order.OrderStatus status, int orders, int units, BigDecimal price) {
+        long cents = price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact() * Math.abs(units);
+        Runnable apply = () -> deltas.computeIfAbsent(new StatsKey(productId, status), _ -> new Delta())
+            .add(orders, units, cents);
+        if (RootContext.inGlobalTransaction()) {
+            // ローカルのコミットではまだ確定しない（グローバルロールバックで戻る）
+            TransactionHookManager.registerHook(new TransactionHookAdapter() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.stats.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("注文集計の反映に失敗，稍后重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 貯まった増分を 1 回の batchUpdate で加算する；失敗したら増分を戻す
+     */
+    public synchronized int flush() {
+        List<Object[]> rows = new ArrayList<>();
+        List<Runnable> rollback = new ArrayList<>();
+        deltas.forEach((key, delta) -> {
+            long orders = delta.orders.sumThenReset();
+            long units = delta.units.sumThenReset();
+            long cents = delta.revenueCents.sumThenReset();
+            if (orders == 0 && units == 0 && cents == 0) {
+                return;
+            }
+            rows.add(new Object[]{key.productId(), key.status().name(), orders, units, BigDecimal.valueOf(cents, 2)});
+            rollback.add(() -> delta.add(orders, units, cents));
+        });
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        } catch (RuntimeException e) {
+            rollback.forEach(Runnable::run);
+            throw e;
+        }
+        log.debug("注文集計を反映: Rows={}", rows.size());
+        return rows.size();
+    }
+
+    /**
+     * 作り直しの前に未反映の増分を捨てる（作り直し結果に含まれるため）
+     */
+    synchronized void discardPending() {
+        deltas.clear();
+    }
+
+    /**
+     * フラッシュと排他で実行する（作り直し中に増分が反映されて上書きされないように）
+     */
+    synchronized <T> T exclusive(Supplier<T> action) {
+        return action.get();
+    }
+}
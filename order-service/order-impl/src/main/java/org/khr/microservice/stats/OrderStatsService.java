@@ -0,0 +1,87 @@
+package org.khr.microservice.stats;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.khr.microservice.model.Order;
+import org.khr.microservice.model.OrderModel;
+import org.khr.microservice.model.OrderStats;
+import org.khr.microservice.repository.OrderRepository;
+import org.khr.microservice.repository.OrderStatsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 注文集計の参照と作り直し
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderStatsService {
+
+    private static final int CLEAR_INTERVAL = 500;
+
+    private final OrderStatsRepository orderStatsRepository;
+    private final OrderRepository orderRepository;
+    private final OrderStatsRecorder recorder;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 集計テーブルを読むだけ（行数は 商品数 × ステータス数）
+     */
+    @Transactional(readOnly = true)
+    public List<OrderModel.OrderStatsEntry> getStats(Long productId) {
+        List<OrderStats> rows = productId == null ? orderStatsRepository.findAllByOrderByProductIdAscStatusAsc()
+            : orderStatsRepository.findByProductIdOrderByStatusAsc(productId);
+        return rows.stream()
+            .map(row -> new OrderModel.OrderStatsEntry(row.getProductId(), row.getStatus(), row.getOrderCount(),
+                row.getUnits(), row.getRevenue()))
+            .toList();
+    }
+
+    /**
+     * orders を 1 回だけストリームで読み、集計テーブルを置き換える
+     * このインスタンスのフラッシュは止めて、開始前の増分は捨てる（結果に含まれる）、開始後の増分は完了後に加算される。
+     * 実行中に他インスタンスが反映した増分は上書きされるので、注文の少ない時間帯に実行する
+     */
+    public OrderModel.OrderStatsRebuildResult rebuild() {
+        return recorder.exclusive(() -> {
+            recorder.discardPending();
+            return transactionTemplate.execute(_ -> rebuildInTransaction());
+        });
+    }
+
+    private OrderModel.OrderStatsRebuildResult rebuildInTransaction() {
+        Map<OrderStats.Key, OrderStats> totals = new HashMap<>();
+        long count = 0;
+        try (Stream<Order> orders = orderRepository.streamForExport(null, null)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                OrderStats stats = totals.computeIfAbsent(new OrderStats.Key(order.getProductId(), order.getStatus()),
+                    key -> new OrderStats(key.getProductId(), key.getStatus(), 0, 0, BigDecimal.ZERO));
+                stats.setOrderCount(stats.getOrderCount() + 1);
+                stats.setUnits(stats.getUnits() + order.getQuantity());
+                stats.setRevenue(stats.getRevenue().add(order.getPrice().multiply(BigDecimal.valueOf(order.getQuantity()))));
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+
+        orderStatsRepository.deleteAllInBatch();
+        // 主キーは自前で決めているので persist で直接 INSERT（saveAll だと 1 行ずつ SELECT が走る）
+        totals.values().forEach(entityManager::persist);
+        log.info("注文集計を作り直し: Orders={}, Rows={}", count, totals.size());
+        return new OrderModel.OrderStatsRebuildResult(count, totals.size());
+    }
+}
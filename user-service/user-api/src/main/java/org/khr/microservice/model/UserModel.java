@@ -1,5 +1,6 @@
 package org.khr.microservice.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
@@ -13,7 +14,8 @@ public class UserModel {
 
     }
 
-    public record UserVO(Long id, String username, String email, String token) {
+    public record UserVO(@JsonFormat(shape = JsonFormat.Shape.STRING) Long id, String username, String email,
+                         String token) {
 
     }
 }